@@ -38,25 +38,34 @@ export const sendGetFolderContent = async (folderName = "") => {
 
     console.log("ЗАпрос на содержимое папки: " + folderName);
 
-    const params = new URLSearchParams({path: folderName});
+    let directory = [];
+    let cursor = null;
 
-    const url = `${API_DIRECTORY}?${params.toString()}`;
+    do {
+        const params = new URLSearchParams({path: folderName});
+        if (cursor) {
+            params.append("cursor", cursor);
+        }
 
-    const response = await fetch(url, {
-        method: 'GET',
-        headers: {
-            'Content-Type': 'application/json',
-        },
-        credentials: 'include'
-    });
+        const url = `${API_DIRECTORY}?${params.toString()}`;
 
+        const response = await fetch(url, {
+            method: 'GET',
+            headers: {
+                'Content-Type': 'application/json',
+            },
+            credentials: 'include'
+        });
 
-    if (!response.ok) {
-        const errorMessage = await response.json();
-        throwSpecifyException(response.status, errorMessage);
-    }
 
-    let directory = await response.json();
+        if (!response.ok) {
+            const errorMessage = await response.json();
+            throwSpecifyException(response.status, errorMessage);
+        }
+
+        directory = directory.concat(await response.json());
+        cursor = response.headers.get("X-Next-Cursor");
+    } while (cursor);
     console.log("Получен контент из папки: " + folderName);
     console.log(directory);
 
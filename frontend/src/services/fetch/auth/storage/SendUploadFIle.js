@@ -43,6 +43,9 @@ export async function sendUpload(files, updateDownloadTask, updateTask, uploadTa
 
         if (response.status === 201) {
             updateTask(uploadTask, "completed", "Загружено");
+        } else if (response.status === 207) {
+            const failed = response.data.filter(result => result.status === "FAILED").length;
+            updateTask(uploadTask, "error", "Не удалось загрузить файлов: " + failed);
         }
     } catch (error) {
         console.log(error);
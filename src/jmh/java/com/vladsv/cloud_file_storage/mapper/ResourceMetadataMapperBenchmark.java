@@ -0,0 +1,69 @@
+package com.vladsv.cloud_file_storage.mapper;
+
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.entity.ResourceMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps index rows of a large directory the way listings and searches do, every tenth entry
+ * being a subdirectory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResourceMetadataMapperBenchmark {
+
+    private static final long USER_ID = 42L;
+    private static final String PARENT = "projects/2024/";
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private List<ResourceMetadata> resources;
+
+    @Setup
+    public void setUp() {
+        Instant lastModified = Instant.parse("2024-05-17T10:15:30Z");
+        resources = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            resources.add(i % 10 == 0
+                    ? resource("folder-" + i + "/", null, ResourceMetadata.Type.DIRECTORY, null, lastModified)
+                    : resource("file-" + i + ".txt", i * 31L, ResourceMetadata.Type.FILE, "etag-" + i, lastModified));
+        }
+    }
+
+    @Benchmark
+    public List<ResourceResponseDto> toResourceDto() {
+        List<ResourceResponseDto> dtos = new ArrayList<>(resources.size());
+        for (ResourceMetadata resource : resources) {
+            dtos.add(ResourceMetadataMapper.INSTANCE.toResourceDto(resource));
+        }
+        return dtos;
+    }
+
+    private static ResourceMetadata resource(String name, Long size, ResourceMetadata.Type type, String etag,
+                                             Instant lastModified) {
+        return ResourceMetadata.builder()
+                .userId(USER_ID)
+                .path(PARENT + name)
+                .parent(PARENT)
+                .name(name)
+                .size(size)
+                .type(type)
+                .etag(etag)
+                .lastModified(lastModified)
+                .build();
+    }
+}
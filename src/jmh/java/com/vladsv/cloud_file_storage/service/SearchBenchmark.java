@@ -0,0 +1,91 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.SearchProperties;
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.entity.ResourceMetadata;
+import com.vladsv.cloud_file_storage.repository.ResourceMetadataRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name search over one account of a million files: the trigram index against the linear scan it
+ * replaced, for a selective query, a common one and one too short for trigrams.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SearchBenchmark {
+
+    private static final long USER_ID = 42L;
+    private static final int LIMIT = 50;
+    private static final String[] WORDS = {"report", "invoice", "photo", "draft", "budget", "summary", "scan",
+            "contract", "notes", "backup", "slides", "export", "final", "review", "archive", "meeting"};
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"invoice-4711", "report", "q3"})
+    private String query;
+
+    private List<ResourceMetadata> resources;
+    private ResourceSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        resources = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + "-" + i + (i % 4 == 0 ? "-q3" : "") + ".pdf";
+            String parent = "folder-" + (i % 1000) + "/";
+            resources.add(ResourceMetadata.builder()
+                    .userId(USER_ID)
+                    .path(parent + name)
+                    .parent(parent)
+                    .name(name)
+                    .size((long) i)
+                    .type(ResourceMetadata.Type.FILE)
+                    .build());
+        }
+
+        ResourceMetadataRepository repository = (ResourceMetadataRepository) Proxy.newProxyInstance(
+                ResourceMetadataRepository.class.getClassLoader(),
+                new Class<?>[]{ResourceMetadataRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAllByUserIdAndPathNot")) {
+                        return resources;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        index = new ResourceSearchIndex(repository,
+                new SearchProperties(Duration.ofDays(1), Duration.ofDays(1), LIMIT, LIMIT));
+        index.search(USER_ID, query, 0, LIMIT);
+    }
+
+    @Benchmark
+    public List<ResourceResponseDto> trigramIndex() {
+        return index.search(USER_ID, query, 0, LIMIT);
+    }
+
+    @Benchmark
+    public List<ResourceMetadata> linearScan() {
+        String key = query.toLowerCase(Locale.ROOT);
+        return resources.stream()
+                .filter(resource -> resource.getName().toLowerCase(Locale.ROOT).contains(key))
+                .limit(LIMIT)
+                .toList();
+    }
+}
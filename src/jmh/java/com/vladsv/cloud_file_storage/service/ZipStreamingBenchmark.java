@@ -0,0 +1,105 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.ArchiveProperties;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import io.minio.messages.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Streams a directory archive from objects held in memory, so only the ZIP encoding, the
+ * prefetcher and the copying are measured. Text entries are deflated, images are stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ZipStreamingBenchmark {
+
+    private static final String BASE_PATH = "user-42-files/album/";
+
+    @Param({"100"})
+    private int entries;
+
+    @Param({"65536", "1048576"})
+    private int entrySize;
+
+    @Param({"txt", "jpg"})
+    private String extension;
+
+    private List<Item> items;
+    private ArchiveService deflateService;
+    private ArchiveService storedService;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        Map<String, byte[]> objects = new HashMap<>();
+        items = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            String name = BASE_PATH + "entry-" + i + "." + extension;
+            byte[] content = new byte[entrySize];
+            if (extension.equals("txt")) {
+                byte[] line = ("line of text number " + i + " with some repetition\n").getBytes(StandardCharsets.UTF_8);
+                for (int j = 0; j < entrySize; j++) {
+                    content[j] = line[j % line.length];
+                }
+            } else {
+                random.nextBytes(content);
+            }
+            objects.put(name, content);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            items.add(new IndexedItem(1L, name, entrySize, Integer.toHexString(i), null, crc.getValue(), null));
+        }
+
+        MinioRepository repository = new MinioRepository(null, null, null, null, null) {
+            @Override
+            public InputStream getObject(String path) {
+                return new ByteArrayInputStream(objects.get(path));
+            }
+
+            @Override
+            public InputStream getObject(String path, long offset, long length) {
+                return new ByteArrayInputStream(objects.get(path), (int) offset, (int) length);
+            }
+        };
+        deflateService = new ArchiveService(repository, null, getProperties(ArchiveProperties.Mode.DEFLATE));
+        storedService = new ArchiveService(repository, null, getProperties(ArchiveProperties.Mode.STORED));
+    }
+
+    @Benchmark
+    public void deflateZip() throws IOException {
+        deflateService.writeZip(BASE_PATH, items, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void storedZip() throws IOException {
+        StoredZipArchive archive = StoredZipArchive.of(BASE_PATH, items);
+        storedService.writeStoredZip(archive, 0, archive.length(), OutputStream.nullOutputStream());
+    }
+
+    private ArchiveProperties getProperties(ArchiveProperties.Mode mode) {
+        return new ArchiveProperties(8, DataSize.ofMegabytes(64), DataSize.ofMegabytes(8), mode,
+                List.of("image/*"));
+    }
+}
@@ -0,0 +1,51 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathUtilsBenchmark {
+
+    @Param({"documents/report.pdf", "//a//b///c/d/e/f/g/photo.jpg", "projects/2024/q3/drafts/"})
+    private String path;
+
+    private String absolutePath;
+
+    @Setup
+    public void setUp() {
+        absolutePath = PathUtils.getUserRootDirectoryPattern(42L) + PathUtils.normalizePath(path);
+    }
+
+    @Benchmark
+    public String normalizePath() {
+        return PathUtils.normalizePath(path);
+    }
+
+    @Benchmark
+    public String getResourceNameFromPath() {
+        return PathUtils.getResourceNameFromPath(absolutePath);
+    }
+
+    @Benchmark
+    public String getPathToResource() {
+        return PathUtils.getPathToResource(absolutePath);
+    }
+
+    @Benchmark
+    public void resourcePathOfAbsolute(Blackhole blackhole) {
+        ResourcePath resourcePath = ResourcePath.ofAbsolute(absolutePath, 42L);
+        blackhole.consume(resourcePath.parent());
+        blackhole.consume(resourcePath.name());
+    }
+}
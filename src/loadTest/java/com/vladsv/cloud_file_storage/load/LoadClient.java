@@ -0,0 +1,105 @@
+package com.vladsv.cloud_file_storage.load;
+
+import com.vladsv.cloud_file_storage.dto.ResourcePageDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Talks to the running application over HTTP as a single signed-in user. Response bodies are
+ * drained and dropped, so the client measures the server rather than its own parsing.
+ */
+final class LoadClient {
+
+    private static final String MULTIPART_PART_NAME = "object";
+    private static final String PAGE_SIZE = "1000";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .cookieHandler(new CookieManager())
+            .build();
+    private final String baseUrl;
+
+    LoadClient(int port) {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    void signUp(String username, String password) throws IOException, InterruptedException {
+        String body = "{\"username\":\"%s\",\"password\":\"%s\"}".formatted(username, password);
+        send(HttpRequest.newBuilder(uri("/api/auth/sign-up", Map.of()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    void post(String path, Map<String, String> query) throws IOException, InterruptedException {
+        send(HttpRequest.newBuilder(uri(path, query))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+    }
+
+    HttpResponse<Void> get(String path, Map<String, String> query) throws IOException, InterruptedException {
+        return get(path, query, "*/*");
+    }
+
+    HttpResponse<Void> get(String path, Map<String, String> query, String accept)
+            throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path, query))
+                .header("Accept", accept)
+                .GET()
+                .build());
+    }
+
+    /**
+     * Reads one page of a directory and returns the cursor of the next one, if any.
+     */
+    Optional<String> getDirectoryPage(String directory, String cursor) throws IOException, InterruptedException {
+        Map<String, String> query = cursor == null
+                ? Map.of("path", directory, "limit", PAGE_SIZE)
+                : Map.of("path", directory, "limit", PAGE_SIZE, "cursor", cursor);
+        return get("/api/directory", query, "application/json").headers()
+                .firstValue(ResourcePageDto.NEXT_CURSOR_HEADER);
+    }
+
+    void upload(String directory, String fileName, byte[] content) throws IOException, InterruptedException {
+        String boundary = UUID.randomUUID().toString();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + MULTIPART_PART_NAME + "\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        send(HttpRequest.newBuilder(uri("/api/resource", Map.of("path", directory)))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build());
+    }
+
+    private HttpResponse<Void> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IOException("%s %s answered %d".formatted(request.method(), request.uri(), response.statusCode()));
+        }
+        return response;
+    }
+
+    private URI uri(String path, Map<String, String> query) {
+        String queryString = query.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return URI.create(baseUrl + path + (queryString.isEmpty() ? "" : "?" + queryString));
+    }
+}
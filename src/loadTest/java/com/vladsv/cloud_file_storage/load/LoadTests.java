@@ -0,0 +1,356 @@
+package com.vladsv.cloud_file_storage.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vladsv.cloud_file_storage.Containers;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import com.vladsv.cloud_file_storage.repository.UserRepository;
+import com.vladsv.cloud_file_storage.service.ResourceMetadataService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import utils.NdjsonWriter;
+import utils.ResourcePath;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end throughput of the main user paths, run with {@code ./gradlew loadTest}. The
+ * application is booted on a random port against MinIO, Postgres and Redis in containers and
+ * driven over HTTP. Sizes are multiplied by {@code -PloadTest.scale}, results are written to
+ * {@code build/load-test/results.json} under the {@code -PloadTest.label} of the build.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class LoadTests implements Containers {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTests.class);
+
+    private static final double SCALE = Double.parseDouble(System.getProperty("loadTest.scale", "1.0"));
+    private static final String LABEL = System.getProperty("loadTest.label", "local");
+    private static final Path RESULTS_DIRECTORY = Path.of(System.getProperty("loadTest.resultsDir", "build/load-test"));
+
+    private static final String USERNAME = "load-test";
+    private static final String PASSWORD = "load-test-password";
+    private static final String CONTENT_TYPE = "application/octet-stream";
+    private static final String LARGE_DIRECTORY = "large/";
+    private static final int INSERT_BATCH_SIZE = 5000;
+    private static final int SEED_CONCURRENCY = 64;
+    private static final String INSERT_RESOURCE = """
+            INSERT INTO resources (user_id, path, parent, name, size, type, etag, last_modified)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final List<ScenarioResult> RESULTS = new CopyOnWriteArrayList<>();
+
+    private static LoadClient client;
+    private static Long userId;
+    private static boolean largeDirectorySeeded;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    MinioRepository minioRepository;
+
+    @Autowired
+    ResourceMetadataService resourceMetadataService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void containerStart() {
+        postgres.start();
+        minio.start();
+        redis.start();
+    }
+
+    @AfterAll
+    static void containerShutdown() throws IOException {
+        writeResults();
+        postgres.stop();
+        minio.stop();
+        redis.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+
+        registry.add("spring.minio.endpoint", minio::getS3URL);
+        registry.add("spring.minio.username", minio::getUserName);
+        registry.add("spring.minio.password", minio::getPassword);
+        registry.add("spring.minio.bucket_name", () -> "load-test");
+
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+        registry.add("spring.data.redis.password", () -> "");
+
+        registry.add("spring.quota.default_quota", () -> "1TB");
+    }
+
+    @BeforeEach
+    void signUp() throws Exception {
+        if (client == null) {
+            client = new LoadClient(port);
+            client.signUp(USERNAME, PASSWORD);
+            userId = userRepository.findByUsername(USERNAME).orElseThrow().getId();
+        }
+    }
+
+    @Test
+    @Order(1)
+    void smallUploads() throws Exception {
+        byte[] content = randomBytes(4 * 1024);
+        client.post("/api/directory", Map.of("path", "small/"));
+
+        record(ScenarioRunner.run("small-uploads", 100, scaled(2000), 32,
+                i -> client.upload("small/", "file-%06d.bin".formatted(i), content)));
+    }
+
+    @Test
+    @Order(2)
+    void largeFileDownload() throws Exception {
+        long size = scaled(256) * 1024L * 1024;
+        String absolutePath = ResourcePath.of("large.bin").toAbsolute(userId);
+        String etag = minioRepository.createObject(absolutePath, new RepeatingInputStream(randomBytes(1024 * 1024), size), CONTENT_TYPE)
+                .orElseThrow();
+        resourceMetadataService.save(userId, absolutePath, size, etag, null);
+
+        record(ScenarioRunner.run("large-file-download", 2, 16, 4,
+                i -> client.get("/api/resource/download", Map.of("path", "large.bin"))));
+    }
+
+    @Test
+    @Order(3)
+    void deepFolderZip() throws Exception {
+        seedTree("zip/", 6, 2, scaled(8), 16 * 1024);
+
+        record(ScenarioRunner.run("deep-folder-zip", 1, 10, 2,
+                i -> client.get("/api/resource/download", Map.of("path", "zip/"))));
+    }
+
+    @Test
+    @Order(4)
+    void largeDirectoryPagedListing() {
+        seedLargeDirectory(scaled(100_000));
+
+        record(ScenarioRunner.run("listing-paged", 1, 10, 2, i -> {
+            Optional<String> cursor = client.getDirectoryPage(LARGE_DIRECTORY, null);
+            while (cursor.isPresent()) {
+                cursor = client.getDirectoryPage(LARGE_DIRECTORY, cursor.get());
+            }
+        }));
+    }
+
+    @Test
+    @Order(5)
+    void largeDirectoryStreamedListing() {
+        seedLargeDirectory(scaled(100_000));
+
+        record(ScenarioRunner.run("listing-streamed", 1, 10, 2,
+                i -> client.get("/api/directory", Map.of("path", LARGE_DIRECTORY), NdjsonWriter.APPLICATION_NDJSON)));
+    }
+
+    /**
+     * The first search loads the account's index, warm-up takes that hit so the result shows
+     * steady-state queries.
+     */
+    @Test
+    @Order(6)
+    void searchOnLargeAccount() {
+        seedLargeDirectory(scaled(100_000));
+        Random random = new Random(42);
+
+        record(ScenarioRunner.run("search", 50, scaled(2000), 16,
+                i -> client.get("/api/resource/search",
+                        Map.of("query", "document-%03d".formatted(random.nextInt(1000))), "application/json")));
+    }
+
+    @Test
+    @Order(7)
+    void bigTreeRename() throws Exception {
+        int trees = 3;
+        for (int i = 0; i < trees; i++) {
+            seedTree("tree-%d/".formatted(i), 3, 4, scaled(12), 1024);
+        }
+
+        record(ScenarioRunner.run("tree-rename", 0, trees, 1,
+                i -> client.get("/api/resource/move",
+                        Map.of("from", "tree-%d/".formatted(i), "to", "renamed-tree-%d/".formatted(i)))));
+    }
+
+    private static void record(ScenarioResult result) {
+        RESULTS.add(result);
+        log.info("{}", result);
+        assertEquals(0, result.errors(), result.firstError());
+    }
+
+    private static void writeResults() throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", LABEL);
+        report.put("timestamp", Instant.now().toString());
+        report.put("scale", SCALE);
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("scenarios", RESULTS);
+
+        Files.createDirectories(RESULTS_DIRECTORY);
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(RESULTS_DIRECTORY.resolve("results.json").toFile(), report);
+    }
+
+    private static int scaled(int size) {
+        return (int) Math.max(1, Math.round(size * SCALE));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Creates {@code filesPerDirectory} real objects in every folder of a tree {@code depth}
+     * levels deep and indexes them the way an upload would.
+     */
+    private void seedTree(String directory, int depth, int fanOut, int filesPerDirectory, int fileSize)
+            throws Exception {
+        List<String> directories = new ArrayList<>();
+        collectDirectories(directory, depth, fanOut, directories);
+        resourceMetadataService.saveDirectories(userId, directories.stream()
+                .map(path -> ResourcePath.of(path).toAbsolute(userId))
+                .toList());
+
+        byte[] content = randomBytes(fileSize);
+        Semaphore permits = new Semaphore(SEED_CONCURRENCY);
+        List<Future<?>> writes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String path : directories) {
+                for (int i = 0; i < filesPerDirectory; i++) {
+                    String absolutePath = ResourcePath.of(path + "file-%d.bin".formatted(i)).toAbsolute(userId);
+                    writes.add(executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            String etag = minioRepository.createObject(absolutePath, new ByteArrayInputStream(content), CONTENT_TYPE)
+                                    .orElseThrow();
+                            resourceMetadataService.save(userId, absolutePath, content.length, etag, null);
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }));
+                }
+            }
+        }
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to seed " + directory, e.getCause());
+            }
+        }
+    }
+
+    private void collectDirectories(String directory, int depth, int fanOut, List<String> directories) {
+        directories.add(directory);
+        if (depth == 0) {
+            return;
+        }
+        for (int i = 0; i < fanOut; i++) {
+            collectDirectories(directory + "level-%d-%d/".formatted(depth, i), depth - 1, fanOut, directories);
+        }
+    }
+
+    /**
+     * Only listing and search read these entries, so they go straight into the index without
+     * objects behind them, which keeps seeding a large account to seconds.
+     */
+    private void seedLargeDirectory(int entries) {
+        if (largeDirectorySeeded) {
+            return;
+        }
+        resourceMetadataService.saveDirectory(userId, ResourcePath.of(LARGE_DIRECTORY).toAbsolute(userId));
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < entries; i++) {
+            String name = "document-%06d.txt".formatted(i);
+            batch.add(new Object[]{userId, LARGE_DIRECTORY + name, LARGE_DIRECTORY, name, 1024L, "FILE", "etag", now});
+            if (batch.size() == INSERT_BATCH_SIZE || i == entries - 1) {
+                jdbcTemplate.batchUpdate(INSERT_RESOURCE, batch);
+                batch.clear();
+            }
+        }
+        largeDirectorySeeded = true;
+    }
+
+    private static final class RepeatingInputStream extends InputStream {
+
+        private final byte[] pattern;
+        private long remaining;
+
+        private RepeatingInputStream(byte[] pattern, long length) {
+            this.pattern = pattern;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            return pattern[(int) (remaining-- % pattern.length)] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int position = (int) (remaining % pattern.length);
+            int count = (int) Math.min(Math.min(len, remaining), pattern.length - position);
+            System.arraycopy(pattern, position, b, off, count);
+            remaining -= count;
+            return count;
+        }
+    }
+}
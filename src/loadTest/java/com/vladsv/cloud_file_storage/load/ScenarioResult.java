@@ -0,0 +1,25 @@
+package com.vladsv.cloud_file_storage.load;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one scenario, latencies are per operation and exclude warm-up.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ScenarioResult(String name,
+                             int concurrency,
+                             int operations,
+                             long errors,
+                             long durationMillis,
+                             double opsPerSecond,
+                             double p50Millis,
+                             double p99Millis,
+                             double maxMillis,
+                             String firstError) {
+
+    @Override
+    public String toString() {
+        return "%-22s %6d ops  %8.1f ops/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  errors %d"
+                .formatted(name, operations, opsPerSecond, p50Millis, p99Millis, maxMillis, errors);
+    }
+}
@@ -0,0 +1,73 @@
+package com.vladsv.cloud_file_storage.load;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a fixed number of operations from a fixed number of workers, each worker issuing its next
+ * operation as soon as the previous one completes. Warm-up operations run first, with indexes
+ * after the measured ones, and are left out of the result.
+ */
+final class ScenarioRunner {
+
+    @FunctionalInterface
+    interface Operation {
+        void run(int index) throws Exception;
+    }
+
+    private ScenarioRunner() {
+    }
+
+    static ScenarioResult run(String name, int warmup, int operations, int concurrency, Operation operation) {
+        execute(operations, warmup, concurrency, operation, new long[warmup], new AtomicLong(), new AtomicReference<>());
+
+        long[] latencies = new long[operations];
+        AtomicLong errors = new AtomicLong();
+        AtomicReference<String> firstError = new AtomicReference<>();
+        long started = System.nanoTime();
+        execute(0, operations, concurrency, operation, latencies, errors, firstError);
+        long elapsed = System.nanoTime() - started;
+
+        Arrays.sort(latencies);
+        return new ScenarioResult(name, concurrency, operations, errors.get(),
+                elapsed / 1_000_000,
+                operations / (elapsed / 1e9),
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                percentile(latencies, 1.0),
+                firstError.get());
+    }
+
+    private static void execute(int firstIndex, int count, int concurrency, Operation operation,
+                                long[] latencies, AtomicLong errors, AtomicReference<String> firstError) {
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        try {
+                            operation.run(firstIndex + i);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            firstError.compareAndSet(null, e.toString());
+                        }
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                });
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
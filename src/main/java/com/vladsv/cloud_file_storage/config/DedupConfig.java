@@ -0,0 +1,11 @@
+package com.vladsv.cloud_file_storage.config;
+
+import com.vladsv.cloud_file_storage.config.properties.DedupProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DedupProperties.class)
+public class DedupConfig {
+
+}
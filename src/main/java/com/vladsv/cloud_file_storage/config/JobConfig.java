@@ -0,0 +1,13 @@
+package com.vladsv.cloud_file_storage.config;
+
+import com.vladsv.cloud_file_storage.config.properties.JobProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(JobProperties.class)
+public class JobConfig {
+
+}
@@ -1,23 +1,67 @@
 package com.vladsv.cloud_file_storage.config;
 
+import com.vladsv.cloud_file_storage.config.properties.MinioHttpProperties;
 import com.vladsv.cloud_file_storage.config.properties.MinioProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vladsv.cloud_file_storage.config.properties.PresignedProperties;
+import com.vladsv.cloud_file_storage.config.properties.StatCacheProperties;
+import com.vladsv.cloud_file_storage.repository.MinioMetricsInterceptor;
+import com.vladsv.cloud_file_storage.repository.MultipartMinioClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import io.minio.StatObjectResponse;
+import io.minio.http.HttpUtils;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
-@EnableConfigurationProperties(MinioProperties.class)
+@EnableConfigurationProperties({MinioProperties.class, MinioHttpProperties.class, PresignedProperties.class,
+        StatCacheProperties.class})
 public class MinioConfig {
 
+    /**
+     * Shared by both clients, so every call to MinIO goes through the metrics interceptor. The
+     * clients dispatch asynchronously, so the per-host limit of the dispatcher, 5 by default, is
+     * what bounds concurrent calls; it's raised to fit both pools of the bulkhead, as an upload
+     * holds its slot while the body is sent.
+     */
+    @Bean
+    public OkHttpClient minioHttpClient(MinioHttpProperties properties, MeterRegistry meterRegistry) {
+        int maxRequestsPerHost = Math.max(properties.maxRequestsPerHost(),
+                properties.maxConcurrentCalls() + properties.maxConcurrentTransfers());
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(dispatcher.getMaxRequests(), maxRequestsPerHost));
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        return HttpUtils.newDefaultHttpClient(properties.connectTimeout().toMillis(),
+                        properties.writeTimeout().toMillis(),
+                        properties.readTimeout().toMillis()).newBuilder()
+                .connectionPool(new ConnectionPool(properties.maxIdleConnections(),
+                        properties.keepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .addInterceptor(new MinioMetricsInterceptor(meterRegistry))
+                .build();
+    }
+
     @Bean
-    public MinioClient minioClient(MinioProperties properties) throws Exception {
+    public MinioClient minioClient(MinioProperties properties, OkHttpClient minioHttpClient) throws Exception {
         MinioClient client = MinioClient.builder()
                 .endpoint(properties.endpoint())
-                .credentials(properties.username(), properties.password()).build();
+                .credentials(properties.username(), properties.password())
+                .httpClient(minioHttpClient).build();
 
         boolean isBucketExists = client.bucketExists(BucketExistsArgs.builder().bucket(properties.bucketName()).build());
 
@@ -28,4 +72,23 @@ public class MinioConfig {
         return client;
     }
 
+    @Bean
+    public MultipartMinioClient multipartMinioClient(MinioProperties properties, OkHttpClient minioHttpClient) {
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(properties.endpoint())
+                .credentials(properties.username(), properties.password())
+                .httpClient(minioHttpClient).build());
+    }
+
+    @Bean
+    public Cache<String, Optional<StatObjectResponse>> minioStatCache(StatCacheProperties properties,
+                                                                      MeterRegistry meterRegistry) {
+        Cache<String, Optional<StatObjectResponse>> cache = Caffeine.newBuilder()
+                .maximumSize(properties.enabled() ? properties.maximumSize() : 0)
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "minio.stat");
+    }
+
 }
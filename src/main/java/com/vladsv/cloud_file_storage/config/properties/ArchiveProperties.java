@@ -0,0 +1,22 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "spring.archive")
+public record ArchiveProperties(@DefaultValue("8") int prefetchCount,
+                                @DefaultValue("64MB") DataSize memoryBudget,
+                                @DefaultValue("8MB") DataSize maxBufferedObjectSize,
+                                @DefaultValue("DEFLATE") Mode mode,
+                                @DefaultValue({"image/*", "video/*", "audio/*", "application/zip", "application/gzip",
+                                        "application/x-7z-compressed", "application/pdf"})
+                                List<String> incompressibleTypes) {
+
+    public enum Mode {
+        DEFLATE,
+        STORED
+    }
+}
@@ -0,0 +1,17 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "spring.compression")
+public record CompressionProperties(@DefaultValue("false") boolean enabled,
+                                    @DefaultValue({"text/*", "application/json", "application/xml",
+                                            "application/javascript", "application/x-ndjson"})
+                                    List<String> types,
+                                    @DefaultValue("1MB") DataSize frameSize,
+                                    @DefaultValue("6") int level) {
+
+}
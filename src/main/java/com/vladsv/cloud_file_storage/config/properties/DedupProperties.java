@@ -0,0 +1,13 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "spring.dedup")
+public record DedupProperties(@DefaultValue("false") boolean enabled,
+                              @DefaultValue("1h") Duration gracePeriod,
+                              @DefaultValue("1000") int sweepBatchSize) {
+
+}
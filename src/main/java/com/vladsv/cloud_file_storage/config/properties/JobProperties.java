@@ -0,0 +1,14 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "spring.jobs")
+public record JobProperties(@DefaultValue("4") int poolSize,
+                            @DefaultValue("100") int queueCapacity,
+                            @DefaultValue("24h") Duration ttl,
+                            @DefaultValue("1s") Duration progressInterval) {
+
+}
@@ -0,0 +1,10 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "spring.listing")
+public record ListingProperties(@DefaultValue("1000") int defaultLimit,
+                                @DefaultValue("5000") int maxLimit) {
+
+}
@@ -0,0 +1,19 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "spring.minio.http")
+public record MinioHttpProperties(@DefaultValue("64") int maxIdleConnections,
+                                  @DefaultValue("5m") Duration keepAlive,
+                                  @DefaultValue("5s") Duration connectTimeout,
+                                  @DefaultValue("60s") Duration readTimeout,
+                                  @DefaultValue("60s") Duration writeTimeout,
+                                  @DefaultValue("64") int maxRequestsPerHost,
+                                  @DefaultValue("64") int maxConcurrentCalls,
+                                  @DefaultValue("32") int maxConcurrentTransfers,
+                                  @DefaultValue("200ms") Duration acquireTimeout) {
+
+}
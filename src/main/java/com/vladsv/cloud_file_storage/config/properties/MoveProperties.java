@@ -0,0 +1,11 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "spring.move")
+public record MoveProperties(@DefaultValue("32") int parallelism,
+                             @DefaultValue("1000") int batchSize,
+                             @DefaultValue("3") int maxAttempts) {
+
+}
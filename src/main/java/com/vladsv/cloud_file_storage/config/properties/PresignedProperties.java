@@ -0,0 +1,14 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "spring.minio.presigned")
+public record PresignedProperties(@DefaultValue("false") boolean enabled,
+                                  String publicEndpoint,
+                                  @DefaultValue("us-east-1") String region,
+                                  @DefaultValue("15m") Duration expiry) {
+
+}
@@ -0,0 +1,14 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "spring.quota")
+public record QuotaProperties(@DefaultValue("true") boolean enabled,
+                              @DefaultValue("10GB") DataSize defaultQuota,
+                              @DefaultValue("1h") Duration reservationTimeout) {
+
+}
@@ -0,0 +1,10 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "spring.metrics.scraper")
+public record ScraperProperties(@DefaultValue("prometheus") String username,
+                                String password) {
+
+}
@@ -0,0 +1,14 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "spring.search")
+public record SearchProperties(@DefaultValue("30m") Duration idleTimeout,
+                               @DefaultValue("10m") Duration maxAge,
+                               @DefaultValue("50") int defaultLimit,
+                               @DefaultValue("500") int maxLimit) {
+
+}
@@ -0,0 +1,13 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "spring.minio.stat-cache")
+public record StatCacheProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("10000") long maximumSize,
+                                  @DefaultValue("30s") Duration ttl) {
+
+}
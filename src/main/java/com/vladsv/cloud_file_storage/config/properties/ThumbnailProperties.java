@@ -0,0 +1,22 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "spring.thumbnail")
+public record ThumbnailProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("256") int size,
+                                  @DefaultValue("0.8") float quality,
+                                  @DefaultValue("2") int poolSize,
+                                  @DefaultValue("200") int queueCapacity,
+                                  @DefaultValue("32MB") DataSize maxSourceSize,
+                                  @DefaultValue("40000000") long maxSourcePixels,
+                                  @DefaultValue("7d") Duration maxAge,
+                                  @DefaultValue({"image/jpeg", "image/png", "image/gif", "image/bmp"})
+                                  List<String> types) {
+
+}
@@ -0,0 +1,14 @@
+package com.vladsv.cloud_file_storage.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "spring.upload")
+public record UploadProperties(@DefaultValue("16MB") DataSize chunkSize,
+                               @DefaultValue("24h") Duration sessionTtl,
+                               @DefaultValue("16") int maxConcurrentFiles) {
+
+}
@@ -1,10 +1,16 @@
 package com.vladsv.cloud_file_storage.config.security;
 
+import com.vladsv.cloud_file_storage.config.properties.ScraperProperties;
+import com.vladsv.cloud_file_storage.dto.ResourcePageDto;
 import com.vladsv.cloud_file_storage.repository.UserRepository;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
@@ -13,9 +19,12 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.logout.LogoutSuccessHandler;
@@ -29,8 +38,47 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(ScraperProperties.class)
 public class SecurityConfig {
 
+    private static final String SCRAPER_ROLE = "METRICS";
+
+    /**
+     * Actuator endpoints get their own chain: health stays public for probes, everything else
+     * is reserved for the metrics scraper account, so signing up does not grant access to metrics.
+     * Without a configured scraper password nobody can authenticate here.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http,
+                                                           ScraperProperties scraperProperties,
+                                                           PasswordEncoder passwordEncoder) throws Exception {
+        InMemoryUserDetailsManager scrapers = new InMemoryUserDetailsManager();
+        if (scraperProperties.password() != null && !scraperProperties.password().isBlank()) {
+            scrapers.createUser(User.withUsername(scraperProperties.username())
+                    .password(passwordEncoder.encode(scraperProperties.password()))
+                    .roles(SCRAPER_ROLE)
+                    .build());
+        }
+        DaoAuthenticationProvider scraperProvider = new DaoAuthenticationProvider(scrapers);
+        scraperProvider.setPasswordEncoder(passwordEncoder);
+
+        http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .authorizeHttpRequests((authorize) -> authorize
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .anyRequest().hasRole(SCRAPER_ROLE)
+                )
+                .authenticationManager(new ProviderManager(scraperProvider))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .exceptionHandling(configurer ->
+                        configurer.authenticationEntryPoint(authenticationEntryPoint()))
+                .httpBasic(Customizer.withDefaults())
+                .csrf(AbstractHttpConfigurer::disable);
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource) throws Exception {
         http
@@ -67,6 +115,7 @@ public class SecurityConfig {
         configuration.addAllowedOrigin("http://frontend");
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of(ResourcePageDto.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -81,6 +130,7 @@ public class SecurityConfig {
         configuration.addAllowedOrigin("http://localhost");
         configuration.setAllowedMethods(List.of("*"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of(ResourcePageDto.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
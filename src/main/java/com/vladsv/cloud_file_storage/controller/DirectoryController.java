@@ -2,14 +2,20 @@ package com.vladsv.cloud_file_storage.controller;
 
 import com.vladsv.cloud_file_storage.docs.directory.DirectoryCreationSwaggerDoc;
 import com.vladsv.cloud_file_storage.docs.directory.GetDirectoryContentSwaggerDoc;
+import com.vladsv.cloud_file_storage.docs.directory.StreamDirectoryContentSwaggerDoc;
 import com.vladsv.cloud_file_storage.docs.StandardResourceApiResponses;
+import com.vladsv.cloud_file_storage.dto.ResourcePageDto;
 import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
 import com.vladsv.cloud_file_storage.entity.User;
 import com.vladsv.cloud_file_storage.service.DirectoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import utils.NdjsonWriter;
 
 import java.util.List;
 
@@ -19,14 +25,32 @@ import java.util.List;
 public class DirectoryController {
 
     private final DirectoryService directoryService;
+    private final ObjectMapper objectMapper;
 
     @GetDirectoryContentSwaggerDoc
     @StandardResourceApiResponses
-    @ResponseStatus(HttpStatus.OK)
     @GetMapping
-    public List<ResourceResponseDto> getDirectoryContent(@RequestParam("path") String path,
-                                                         @AuthenticationPrincipal User user) {
-        return directoryService.getDirectoryContent(path, user.getId());
+    public ResponseEntity<List<ResourceResponseDto>> getDirectoryContent(@RequestParam("path") String path,
+                                                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                                                         @AuthenticationPrincipal User user) {
+        ResourcePageDto page = directoryService.getDirectoryContent(path, cursor, limit, user.getId());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(ResourcePageDto.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    @StreamDirectoryContentSwaggerDoc
+    @StandardResourceApiResponses
+    @GetMapping(produces = NdjsonWriter.APPLICATION_NDJSON)
+    public void streamDirectoryContent(@RequestParam("path") String path,
+                                       @AuthenticationPrincipal User user,
+                                       HttpServletResponse response) {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        directoryService.streamDirectoryContent(path, user.getId(), writer::accept);
+        writer.finish();
     }
 
     @DirectoryCreationSwaggerDoc
@@ -0,0 +1,76 @@
+package com.vladsv.cloud_file_storage.controller;
+
+import com.vladsv.cloud_file_storage.docs.StandardResourceApiResponses;
+import com.vladsv.cloud_file_storage.docs.job.*;
+import com.vladsv.cloud_file_storage.dto.JobDto;
+import com.vladsv.cloud_file_storage.entity.User;
+import com.vladsv.cloud_file_storage.service.JobService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RequestMapping("/api/jobs")
+@RestController
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobService jobService;
+
+    @SubmitDeleteJobSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @PostMapping("/delete")
+    public JobDto delete(@RequestParam("path") String path,
+                         @AuthenticationPrincipal User user) {
+        return jobService.submitDelete(path, user.getId());
+    }
+
+    @SubmitMoveJobSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @PostMapping("/move")
+    public JobDto move(@RequestParam("from") String from,
+                       @RequestParam("to") String to,
+                       @AuthenticationPrincipal User user) {
+        return jobService.submitMove(from, to, user.getId());
+    }
+
+    @SubmitZipJobSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @PostMapping("/zip")
+    public JobDto zip(@RequestParam("path") String path,
+                      @AuthenticationPrincipal User user) {
+        return jobService.submitZip(path, user.getId());
+    }
+
+    @GetJobSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/{jobId}")
+    public JobDto get(@PathVariable("jobId") String jobId,
+                      @AuthenticationPrincipal User user) {
+        return jobService.getJob(jobId, user.getId());
+    }
+
+    @CancelJobSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @DeleteMapping("/{jobId}")
+    public JobDto cancel(@PathVariable("jobId") String jobId,
+                         @AuthenticationPrincipal User user) {
+        return jobService.cancelJob(jobId, user.getId());
+    }
+
+    @DownloadJobArchiveSwaggerDoc
+    @StandardResourceApiResponses
+    @GetMapping("/{jobId}/download")
+    public void download(@PathVariable("jobId") String jobId,
+                         @AuthenticationPrincipal User user,
+                         HttpServletResponse response) {
+        jobService.downloadArchive(jobId, user.getId(), response);
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.vladsv.cloud_file_storage.controller;
+
+import com.vladsv.cloud_file_storage.docs.StandardResourceApiResponses;
+import com.vladsv.cloud_file_storage.docs.presigned.ChunkUploadUrlSwaggerDoc;
+import com.vladsv.cloud_file_storage.docs.presigned.ConfirmUploadSwaggerDoc;
+import com.vladsv.cloud_file_storage.docs.presigned.DownloadUrlSwaggerDoc;
+import com.vladsv.cloud_file_storage.docs.presigned.UploadUrlSwaggerDoc;
+import com.vladsv.cloud_file_storage.dto.PresignedUrlDto;
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.entity.User;
+import com.vladsv.cloud_file_storage.service.ResourceService;
+import com.vladsv.cloud_file_storage.service.UploadSessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RequestMapping("/api/presigned")
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "spring.minio.presigned", name = "enabled", havingValue = "true")
+public class PresignedUrlController {
+
+    private final ResourceService resourceService;
+    private final UploadSessionService uploadSessionService;
+
+    @DownloadUrlSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/download")
+    public PresignedUrlDto download(@RequestParam("path") String path,
+                                    @AuthenticationPrincipal User user) {
+        return resourceService.getDownloadUrl(path, user.getId());
+    }
+
+    @UploadUrlSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/upload")
+    public PresignedUrlDto upload(@RequestParam("path") String path,
+                                  @RequestParam("name") String name,
+                                  @RequestParam("size") long size,
+                                  @AuthenticationPrincipal User user) {
+        return resourceService.getUploadUrl(path, name, size, user.getId());
+    }
+
+    @ConfirmUploadSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/upload/complete")
+    public ResourceResponseDto confirmUpload(@RequestParam("path") String path,
+                                             @RequestParam("name") String name,
+                                             @AuthenticationPrincipal User user) {
+        return resourceService.confirmUpload(path, name, user.getId());
+    }
+
+    @ChunkUploadUrlSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/upload/{uploadId}/chunks/{chunkNumber}")
+    public PresignedUrlDto uploadChunk(@PathVariable("uploadId") String uploadId,
+                                       @PathVariable("chunkNumber") int chunkNumber,
+                                       @AuthenticationPrincipal User user) {
+        return uploadSessionService.getChunkUploadUrl(uploadId, chunkNumber, user.getId());
+    }
+
+}
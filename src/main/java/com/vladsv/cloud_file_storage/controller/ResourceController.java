@@ -2,18 +2,28 @@ package com.vladsv.cloud_file_storage.controller;
 
 import com.vladsv.cloud_file_storage.docs.*;
 import com.vladsv.cloud_file_storage.docs.resource.*;
+import com.vladsv.cloud_file_storage.dto.ResourcePageDto;
 import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.dto.UploadResultDto;
 import com.vladsv.cloud_file_storage.entity.User;
 import com.vladsv.cloud_file_storage.service.ResourceService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import utils.NdjsonWriter;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Objects;
 
 @RequestMapping("/api/resource")
 @RestController
@@ -21,6 +31,7 @@ import java.util.List;
 public class ResourceController {
 
     private final ResourceService resourceService;
+    private final ObjectMapper objectMapper;
 
     @ObtainResourceSwaggerDoc
     @StandardResourceApiResponses
@@ -42,22 +53,42 @@ public class ResourceController {
 
     @UploadResourceSwaggerDoc
     @StandardResourceApiResponses
-    @ResponseStatus(HttpStatus.CREATED)
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public List<ResourceResponseDto> upload(@RequestParam("path") String path,
-                                            @RequestPart("object") List<MultipartFile> files,
-                                            @AuthenticationPrincipal User user) {
-        return resourceService.uploadResources(path, files, user.getId());
+    public ResponseEntity<List<UploadResultDto>> upload(@RequestParam("path") String path,
+                                                        @RequestPart("object") List<MultipartFile> files,
+                                                        @AuthenticationPrincipal User user) {
+        List<UploadResultDto> results = resourceService.uploadResources(path, files, user.getId());
+        return ResponseEntity.status(getUploadStatus(results)).body(results);
+    }
+
+    @StreamingUploadResourceSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public List<ResourceResponseDto> streamUpload(HttpServletRequest request,
+                                                  @AuthenticationPrincipal User user) {
+        return resourceService.streamResources(getQueryParameter(request, "path"), request, user.getId());
     }
 
     @DownloadResourceSwaggerDoc
     @StandardResourceApiResponses
-    @ResponseStatus(HttpStatus.OK)
     @GetMapping("/download")
     public void download(@RequestParam("path") String path,
                          @AuthenticationPrincipal User user,
+                         HttpServletRequest request,
                          HttpServletResponse response) {
-        resourceService.downloadResource(path, user.getId(), response);
+        resourceService.downloadResource(path, user.getId(), request, response);
+    }
+
+    @ThumbnailSwaggerDoc
+    @StandardResourceApiResponses
+    @GetMapping("/thumbnail")
+    public void thumbnail(@RequestParam("path") String path,
+                          @RequestParam(value = "v", required = false) String version,
+                          @AuthenticationPrincipal User user,
+                          HttpServletRequest request,
+                          HttpServletResponse response) {
+        resourceService.downloadThumbnail(path, version, user.getId(), request, response);
     }
 
     @ResourceManipulationSwaggerDoc
@@ -71,11 +102,56 @@ public class ResourceController {
     }
 
     @SearchFunctionalitySwaggerDoc
-    @ResponseStatus(HttpStatus.OK)
     @GetMapping("/search")
-    public List<ResourceResponseDto> search(@RequestParam("query") String query,
-                                            @AuthenticationPrincipal User user) {
-        return resourceService.search(query, user.getId());
+    public ResponseEntity<List<ResourceResponseDto>> search(@RequestParam("query") String query,
+                                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                            @AuthenticationPrincipal User user) {
+        ResourcePageDto page = resourceService.search(query, cursor, limit, user.getId());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(ResourcePageDto.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    @StreamSearchSwaggerDoc
+    @GetMapping(value = "/search", produces = NdjsonWriter.APPLICATION_NDJSON)
+    public void streamSearch(@RequestParam("query") String query,
+                             @AuthenticationPrincipal User user,
+                             HttpServletResponse response) {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        resourceService.streamSearch(query, user.getId(), writer::accept);
+        writer.finish();
+    }
+
+    // request.getParameter() would make the container parse and buffer the whole multipart body
+    /**
+     * A batch where every file failed for the same reason answers with that reason's status,
+     * one where the server caused every failure answers 500, any other partial failure 207.
+     */
+    private static HttpStatus getUploadStatus(List<UploadResultDto> results) {
+        List<HttpStatus> failures = results.stream()
+                .map(UploadResultDto::failure)
+                .filter(Objects::nonNull)
+                .toList();
+        if (failures.isEmpty()) {
+            return HttpStatus.CREATED;
+        }
+        if (failures.size() < results.size()) {
+            return HttpStatus.MULTI_STATUS;
+        }
+        if (failures.stream().distinct().count() == 1) {
+            return failures.getFirst();
+        }
+        return failures.stream().allMatch(HttpStatus::is5xxServerError)
+                ? HttpStatus.INTERNAL_SERVER_ERROR
+                : HttpStatus.MULTI_STATUS;
+    }
+
+    private String getQueryParameter(HttpServletRequest request, String name) {
+        String value = ServletUriComponentsBuilder.fromRequest(request).build().getQueryParams().getFirst(name);
+        return value == null ? "" : UriUtils.decode(value, StandardCharsets.UTF_8);
     }
 
 }
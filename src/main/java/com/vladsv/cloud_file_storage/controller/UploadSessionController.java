@@ -0,0 +1,74 @@
+package com.vladsv.cloud_file_storage.controller;
+
+import com.vladsv.cloud_file_storage.docs.StandardResourceApiResponses;
+import com.vladsv.cloud_file_storage.docs.upload.*;
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.dto.UploadSessionRequestDto;
+import com.vladsv.cloud_file_storage.dto.UploadSessionResponseDto;
+import com.vladsv.cloud_file_storage.entity.User;
+import com.vladsv.cloud_file_storage.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RequestMapping("/api/upload")
+@RestController
+@RequiredArgsConstructor
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @CreateUploadSessionSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping
+    public UploadSessionResponseDto create(@RequestBody @Valid UploadSessionRequestDto uploadSessionRequestDto,
+                                           @AuthenticationPrincipal User user) {
+        return uploadSessionService.createSession(uploadSessionRequestDto, user.getId());
+    }
+
+    @GetUploadSessionSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/{uploadId}")
+    public UploadSessionResponseDto get(@PathVariable("uploadId") String uploadId,
+                                        @AuthenticationPrincipal User user) {
+        return uploadSessionService.getSession(uploadId, user.getId());
+    }
+
+    @UploadChunkSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @PutMapping("/{uploadId}/chunks/{chunkNumber}")
+    public void uploadChunk(@PathVariable("uploadId") String uploadId,
+                            @PathVariable("chunkNumber") int chunkNumber,
+                            @AuthenticationPrincipal User user,
+                            HttpServletRequest request) throws IOException {
+        uploadSessionService.uploadChunk(uploadId, chunkNumber,
+                request.getInputStream(), request.getContentLengthLong(), user.getId());
+    }
+
+    @CompleteUploadSessionSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/{uploadId}/complete")
+    public ResourceResponseDto complete(@PathVariable("uploadId") String uploadId,
+                                        @AuthenticationPrincipal User user) {
+        return uploadSessionService.completeSession(uploadId, user.getId());
+    }
+
+    @AbortUploadSessionSwaggerDoc
+    @StandardResourceApiResponses
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping("/{uploadId}")
+    public void abort(@PathVariable("uploadId") String uploadId,
+                      @AuthenticationPrincipal User user) {
+        uploadSessionService.abortSession(uploadId, user.getId());
+    }
+
+}
@@ -1,13 +1,18 @@
 package com.vladsv.cloud_file_storage.controller;
 
 import com.vladsv.cloud_file_storage.dto.ErrorResponseDto;
+import com.vladsv.cloud_file_storage.dto.StorageUsageDto;
 import com.vladsv.cloud_file_storage.dto.UserResponseDto;
+import com.vladsv.cloud_file_storage.entity.User;
+import com.vladsv.cloud_file_storage.service.StorageUsageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -15,8 +20,11 @@ import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/user")
+@RequiredArgsConstructor
 public class UserController {
 
+    private final StorageUsageService storageUsageService;
+
     @Operation(
             tags = {"Authorization"},
             summary = "Get authenticated user",
@@ -44,5 +52,33 @@ public class UserController {
         return new UserResponseDto(authentication.getName());
     }
 
+    @Operation(
+            tags = {"Authorization"},
+            summary = "Get storage usage",
+            description = "Returns bytes and files stored by the authenticated user along with their quota",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Storage usage returned",
+                            content = @Content(schema = @Schema(implementation = StorageUsageDto.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "401",
+                            description = "User is unauthorized",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Internal server error",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+                    )
+            }
+    )
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/usage")
+    public StorageUsageDto getUsage(@AuthenticationPrincipal User user) {
+        return storageUsageService.getUsage(user.getId());
+    }
+
 }
 
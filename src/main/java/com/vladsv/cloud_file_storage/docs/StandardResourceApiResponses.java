@@ -40,6 +40,11 @@ import java.lang.annotation.Target;
                 responseCode = "500",
                 description = "Internal server error",
                 content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Storage is saturated, retry later",
+                content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
         )
 })
 public @interface StandardResourceApiResponses {
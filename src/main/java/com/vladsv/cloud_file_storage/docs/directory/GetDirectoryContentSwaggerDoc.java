@@ -29,12 +29,21 @@ import java.lang.annotation.Target;
                         allowEmptyValue = true,
                         style = ParameterStyle.FORM,
                         explode = Explode.FALSE
+                ),
+                @Parameter(
+                        name = "cursor",
+                        description = "Opaque cursor from the X-Next-Cursor header of the previous page"
+                ),
+                @Parameter(
+                        name = "limit",
+                        description = "Page size, capped at 5000. Defaults to 1000 when only cursor is given, " +
+                                "without both the whole directory is returned"
                 )
         },
         responses = {
                 @ApiResponse(
                         responseCode = "200",
-                        description = "Collection of resources returned",
+                        description = "Page of resources returned, X-Next-Cursor header is set when more remain",
                         content = @Content(array = @ArraySchema(schema = @Schema(implementation = ResourceResponseDto.class)))
                 )
         }
@@ -0,0 +1,32 @@
+package com.vladsv.cloud_file_storage.docs.directory;
+
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Directory management"},
+        summary = "Streams directory contents",
+        description = "Streams resources of given path directory as newline-delimited JSON in path order, one object per line, selected with Accept: application/x-ndjson",
+        responses = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Resources streamed",
+                        content = @Content(
+                                mediaType = "application/x-ndjson",
+                                schema = @Schema(implementation = ResourceResponseDto.class)
+                        )
+                )
+        }
+)
+public @interface StreamDirectoryContentSwaggerDoc {
+}
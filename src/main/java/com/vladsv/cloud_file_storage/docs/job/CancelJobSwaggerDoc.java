@@ -0,0 +1,32 @@
+package com.vladsv.cloud_file_storage.docs.job;
+
+import com.vladsv.cloud_file_storage.dto.JobDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Background jobs"},
+        summary = "Cancel job",
+        description = "Requests cancellation of a queued or running job, already processed objects stay processed",
+        responses = {
+                @ApiResponse(
+                        responseCode = "202",
+                        description = "Cancellation requested",
+                        content = @Content(
+                                mediaType = "application/json",
+                                schema = @Schema(implementation = JobDto.class)
+                        )
+                )
+        }
+)
+public @interface CancelJobSwaggerDoc {
+}
@@ -0,0 +1,25 @@
+package com.vladsv.cloud_file_storage.docs.job;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Background jobs"},
+        summary = "Download job archive",
+        description = "Downloads ZIP archive produced by a completed archive job",
+        responses = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Archive content"
+                )
+        }
+)
+public @interface DownloadJobArchiveSwaggerDoc {
+}
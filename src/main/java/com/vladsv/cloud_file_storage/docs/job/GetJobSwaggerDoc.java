@@ -0,0 +1,32 @@
+package com.vladsv.cloud_file_storage.docs.job;
+
+import com.vladsv.cloud_file_storage.dto.JobDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Background jobs"},
+        summary = "Get job status",
+        description = "Returns job status along with objects and bytes processed so far",
+        responses = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Job status",
+                        content = @Content(
+                                mediaType = "application/json",
+                                schema = @Schema(implementation = JobDto.class)
+                        )
+                )
+        }
+)
+public @interface GetJobSwaggerDoc {
+}
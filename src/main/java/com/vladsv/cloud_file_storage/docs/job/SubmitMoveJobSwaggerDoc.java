@@ -0,0 +1,36 @@
+package com.vladsv.cloud_file_storage.docs.job;
+
+import com.vladsv.cloud_file_storage.dto.JobDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Background jobs"},
+        summary = "Move resource in background",
+        description = "Queues move or rename of a file or directory and returns the job to poll",
+        responses = {
+                @ApiResponse(
+                        responseCode = "202",
+                        description = "Job accepted",
+                        content = @Content(
+                                mediaType = "application/json",
+                                schema = @Schema(implementation = JobDto.class)
+                        )
+                ),
+                @ApiResponse(
+                        responseCode = "503",
+                        description = "Job queue is full"
+                )
+        }
+)
+public @interface SubmitMoveJobSwaggerDoc {
+}
@@ -0,0 +1,30 @@
+package com.vladsv.cloud_file_storage.docs.presigned;
+
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Direct transfer"},
+        summary = "Confirm direct upload",
+        description = "Indexes file uploaded with direct upload link and counts it towards storage usage. " +
+                "File exceeding the quota is deleted",
+        responses = {
+                @ApiResponse(
+                        responseCode = "201",
+                        description = "Resource has been uploaded",
+                        content = @Content(schema = @Schema(implementation = ResourceResponseDto.class))
+                )
+        }
+)
+public @interface ConfirmUploadSwaggerDoc {
+}
@@ -0,0 +1,30 @@
+package com.vladsv.cloud_file_storage.docs.presigned;
+
+import com.vladsv.cloud_file_storage.dto.PresignedUrlDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Direct transfer"},
+        summary = "Get direct download link",
+        description = "Returns short-lived link to download file directly from storage. Files compressed at rest "
+                + "are served by the application instead, so the link points at the download endpoint",
+        responses = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Download link returned",
+                        content = @Content(schema = @Schema(implementation = PresignedUrlDto.class))
+                )
+        }
+)
+public @interface DownloadUrlSwaggerDoc {
+}
@@ -0,0 +1,33 @@
+package com.vladsv.cloud_file_storage.docs.presigned;
+
+import com.vladsv.cloud_file_storage.dto.PresignedUrlDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Direct transfer"},
+        summary = "Get direct upload link",
+        description = "Returns short-lived form to upload file with given name directly into storage under given path. " +
+                "Send multipart/form-data POST to the returned url with all returned fields followed by the file " +
+                "in a 'file' field. The declared size is checked against the quota and the storage accepts exactly " +
+                "that many bytes. The file appears in the folder only after upload is confirmed with " +
+                "POST /api/presigned/upload/complete",
+        responses = {
+                @ApiResponse(
+                        responseCode = "201",
+                        description = "Upload link returned",
+                        content = @Content(schema = @Schema(implementation = PresignedUrlDto.class))
+                )
+        }
+)
+public @interface UploadUrlSwaggerDoc {
+}
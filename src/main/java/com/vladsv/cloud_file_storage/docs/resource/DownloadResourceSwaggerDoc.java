@@ -21,6 +21,19 @@ import java.lang.annotation.Target;
                         responseCode = "200",
                         description = "Resource returned, if resource is a directory zip file with all contents returned",
                         content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                ),
+                @ApiResponse(
+                        responseCode = "206",
+                        description = "Requested byte range of a file, or of a directory archive in stored mode, returned",
+                        content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                ),
+                @ApiResponse(
+                        responseCode = "304",
+                        description = "File has not been modified since it was cached by client"
+                ),
+                @ApiResponse(
+                        responseCode = "416",
+                        description = "Requested byte range cannot be satisfied"
                 )
         }
 )
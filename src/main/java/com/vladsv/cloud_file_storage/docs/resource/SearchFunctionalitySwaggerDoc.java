@@ -18,7 +18,9 @@ import java.lang.annotation.Target;
 @Operation(
         tags = {"Resource management"},
         summary = "Search resources",
-        description = "Searches for files and folders by name.",
+        description = "Searches for files and folders by name, case-insensitively. Results are ranked by match " +
+                "quality (exact name, prefix, word start, substring). Paged only when limit or cursor is given, " +
+                "next page cursor is returned in X-Next-Cursor header.",
         responses = {
                 @ApiResponse(
                         responseCode = "200",
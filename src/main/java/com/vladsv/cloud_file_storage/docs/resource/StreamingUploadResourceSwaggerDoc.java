@@ -0,0 +1,61 @@
+package com.vladsv.cloud_file_storage.docs.resource;
+
+import com.vladsv.cloud_file_storage.dto.ErrorResponseDto;
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.MediaType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Resource management"},
+        summary = "Upload resource as a stream",
+        description = "Upload resource or resources under given path, parts are piped to storage as they arrive " +
+                "without being buffered on the server, so there is no upload size limit",
+        parameters = {
+                @Parameter(
+                        name = "path",
+                        in = ParameterIn.QUERY,
+                        description = "Path to target directory, empty string means root",
+                        required = true,
+                        allowEmptyValue = true
+                )
+        },
+        requestBody = @RequestBody(
+                required = true,
+                content = @Content(
+                        mediaType = MediaType.MULTIPART_FORM_DATA_VALUE
+                )
+        ),
+        responses = {
+                @ApiResponse(
+                        responseCode = "201",
+                        description = "Resources have been uploaded",
+                        content = @Content(array = @ArraySchema(schema = @Schema(implementation = ResourceResponseDto.class)))
+                ),
+                @ApiResponse(
+                        responseCode = "409",
+                        description = "Resource already exists",
+                        content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+                ),
+                @ApiResponse(
+                        responseCode = "413",
+                        description = "Upload doesn't fit into the storage quota",
+                        content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+                )
+        }
+)
+public @interface StreamingUploadResourceSwaggerDoc {
+}
@@ -0,0 +1,44 @@
+package com.vladsv.cloud_file_storage.docs.resource;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.MediaType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Resource management"},
+        summary = "Download image thumbnail",
+        description = "Download fixed-size JPEG preview of an image, from given path",
+        parameters = {
+                @Parameter(
+                        name = "v",
+                        description = "Etag of the image, the response is cached for long only when it matches " +
+                                "the current one, otherwise it has to be revalidated"
+                )
+        },
+        responses = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Thumbnail returned",
+                        content = @Content(mediaType = MediaType.IMAGE_JPEG_VALUE)
+                ),
+                @ApiResponse(
+                        responseCode = "202",
+                        description = "Thumbnail is being generated, retry after the time given in Retry-After header"
+                ),
+                @ApiResponse(
+                        responseCode = "304",
+                        description = "Thumbnail has not been modified since it was cached by client"
+                )
+        }
+)
+public @interface ThumbnailSwaggerDoc {
+}
@@ -1,8 +1,9 @@
 package com.vladsv.cloud_file_storage.docs.resource;
 
 import com.vladsv.cloud_file_storage.dto.ErrorResponseDto;
-import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.dto.UploadResultDto;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
@@ -19,7 +20,9 @@ import java.lang.annotation.Target;
 @Operation(
         tags = {"Resource management"},
         summary = "Upload resource",
-        description = "Upload resource or resources under given path",
+        description = "Upload resource or resources under given path, files are uploaded concurrently " +
+                "and result is reported for every file separately. When every file fails for the same reason " +
+                "the response has that reason's status, otherwise a partial failure is reported with 207",
         requestBody = @RequestBody(
                 required = true,
                 content = @Content(
@@ -28,14 +31,34 @@ import java.lang.annotation.Target;
         ),
         responses = {
                 @ApiResponse(
-                        responseCode = "200",
-                        description = "Resource has been uploaded",
-                        content = @Content(schema = @Schema(implementation = ResourceResponseDto.class))
+                        responseCode = "201",
+                        description = "All resources have been uploaded",
+                        content = @Content(array = @ArraySchema(schema = @Schema(implementation = UploadResultDto.class)))
+                ),
+                @ApiResponse(
+                        responseCode = "207",
+                        description = "Some resources failed to upload, see error of each failed entry",
+                        content = @Content(array = @ArraySchema(schema = @Schema(implementation = UploadResultDto.class)))
                 ),
                 @ApiResponse(
                         responseCode = "409",
-                        description = "Resource already exists",
+                        description = "No resource has been uploaded, every file already exists",
+                        content = @Content(array = @ArraySchema(schema = @Schema(implementation = UploadResultDto.class)))
+                ),
+                @ApiResponse(
+                        responseCode = "413",
+                        description = "Upload doesn't fit into the storage quota",
                         content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+                ),
+                @ApiResponse(
+                        responseCode = "500",
+                        description = "No resource has been uploaded because of server errors, see error of each entry",
+                        content = @Content(array = @ArraySchema(schema = @Schema(implementation = UploadResultDto.class)))
+                ),
+                @ApiResponse(
+                        responseCode = "503",
+                        description = "No resource has been uploaded, the storage is unavailable",
+                        content = @Content(array = @ArraySchema(schema = @Schema(implementation = UploadResultDto.class)))
                 )
         }
 )
@@ -0,0 +1,25 @@
+package com.vladsv.cloud_file_storage.docs.upload;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Resumable upload"},
+        summary = "Abort upload session",
+        description = "Discards upload session and all chunks uploaded so far",
+        responses = {
+                @ApiResponse(
+                        responseCode = "204",
+                        description = "Upload session aborted"
+                )
+        }
+)
+public @interface AbortUploadSessionSwaggerDoc {
+}
@@ -0,0 +1,29 @@
+package com.vladsv.cloud_file_storage.docs.upload;
+
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Resumable upload"},
+        summary = "Complete upload session",
+        description = "Assembles uploaded chunks into resource, fails if any chunk is missing",
+        responses = {
+                @ApiResponse(
+                        responseCode = "201",
+                        description = "Resource has been uploaded",
+                        content = @Content(schema = @Schema(implementation = ResourceResponseDto.class))
+                )
+        }
+)
+public @interface CompleteUploadSessionSwaggerDoc {
+}
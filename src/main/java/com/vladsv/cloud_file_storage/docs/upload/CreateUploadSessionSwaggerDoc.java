@@ -0,0 +1,31 @@
+package com.vladsv.cloud_file_storage.docs.upload;
+
+import com.vladsv.cloud_file_storage.dto.UploadSessionResponseDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Resumable upload"},
+        summary = "Create upload session",
+        description = "Starts resumable upload of a file under given path, file is sent afterwards in numbered chunks. " +
+                "With deduplication enabled, a sha256 of content the user already stores completes the upload " +
+                "right away and the created resource is returned instead of a session",
+        responses = {
+                @ApiResponse(
+                        responseCode = "201",
+                        description = "Upload session created",
+                        content = @Content(schema = @Schema(implementation = UploadSessionResponseDto.class))
+                )
+        }
+)
+public @interface CreateUploadSessionSwaggerDoc {
+}
@@ -0,0 +1,29 @@
+package com.vladsv.cloud_file_storage.docs.upload;
+
+import com.vladsv.cloud_file_storage.dto.UploadSessionResponseDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Resumable upload"},
+        summary = "Get upload session state",
+        description = "Returns received chunks and offset up to which file has been uploaded without gaps",
+        responses = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Upload session state returned",
+                        content = @Content(schema = @Schema(implementation = UploadSessionResponseDto.class))
+                )
+        }
+)
+public @interface GetUploadSessionSwaggerDoc {
+}
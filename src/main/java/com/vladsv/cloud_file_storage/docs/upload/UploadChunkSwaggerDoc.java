@@ -0,0 +1,25 @@
+package com.vladsv.cloud_file_storage.docs.upload;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Operation(
+        tags = {"Resumable upload"},
+        summary = "Upload chunk",
+        description = "Uploads single numbered chunk of a file, chunks may be sent in any order and in parallel",
+        responses = {
+                @ApiResponse(
+                        responseCode = "204",
+                        description = "Chunk has been stored"
+                )
+        }
+)
+public @interface UploadChunkSwaggerDoc {
+}
@@ -0,0 +1,12 @@
+package com.vladsv.cloud_file_storage.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobDto(String id,
+                     String type,
+                     String status,
+                     Long objectsProcessed,
+                     Long bytesProcessed,
+                     String error) {
+}
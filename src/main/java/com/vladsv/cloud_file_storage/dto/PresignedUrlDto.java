@@ -0,0 +1,9 @@
+package com.vladsv.cloud_file_storage.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PresignedUrlDto(String url, String method, Integer expiresIn, Map<String, String> fields) {
+}
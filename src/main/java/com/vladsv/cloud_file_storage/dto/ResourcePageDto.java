@@ -0,0 +1,9 @@
+package com.vladsv.cloud_file_storage.dto;
+
+import java.util.List;
+
+public record ResourcePageDto(List<ResourceResponseDto> items, String nextCursor) {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+}
@@ -0,0 +1,6 @@
+package com.vladsv.cloud_file_storage.dto;
+
+public record StorageUsageDto(long bytes,
+                              long objects,
+                              long quota) {
+}
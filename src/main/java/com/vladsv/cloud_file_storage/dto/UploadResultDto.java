@@ -0,0 +1,18 @@
+package com.vladsv.cloud_file_storage.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UploadResultDto(String name, String status, ResourceResponseDto resource, String error,
+                              @JsonIgnore HttpStatus failure) {
+
+    public static UploadResultDto uploaded(String name, ResourceResponseDto resource) {
+        return new UploadResultDto(name, "UPLOADED", resource, null, null);
+    }
+
+    public static UploadResultDto failed(String name, String error, HttpStatus failure) {
+        return new UploadResultDto(name, "FAILED", null, error, failure);
+    }
+}
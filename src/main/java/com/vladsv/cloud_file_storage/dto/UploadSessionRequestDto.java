@@ -0,0 +1,13 @@
+package com.vladsv.cloud_file_storage.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+public record UploadSessionRequestDto(@NotNull String path,
+                                      @NotBlank String name,
+                                      @NotNull @Positive(message = "size must be greater than 0") Long size,
+                                      @Pattern(regexp = "[0-9a-f]{64}", message = "sha256 must be a lowercase hex digest")
+                                      String sha256) {
+}
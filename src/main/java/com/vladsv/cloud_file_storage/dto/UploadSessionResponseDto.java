@@ -0,0 +1,14 @@
+package com.vladsv.cloud_file_storage.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UploadSessionResponseDto(String uploadId,
+                                       Long chunkSize,
+                                       Integer totalChunks,
+                                       Long offset,
+                                       List<Integer> receivedChunks,
+                                       ResourceResponseDto resource) {
+}
@@ -0,0 +1,28 @@
+package com.vladsv.cloud_file_storage.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "blobs")
+public class Blob {
+
+    @Id
+    private String hash;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,33 @@
+package com.vladsv.cloud_file_storage.entity;
+
+import lombok.Builder;
+
+@Builder
+public record Job(String id,
+                  Long userId,
+                  Type type,
+                  Status status,
+                  String source,
+                  String target,
+                  long objectsProcessed,
+                  long bytesProcessed,
+                  String error) {
+
+    public enum Type {
+        DELETE,
+        MOVE,
+        ZIP
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+}
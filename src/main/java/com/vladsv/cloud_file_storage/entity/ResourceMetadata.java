@@ -0,0 +1,51 @@
+package com.vladsv.cloud_file_storage.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "resources")
+public class ResourceMetadata {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String path;
+
+    private String parent;
+
+    @Column(nullable = false)
+    private String name;
+
+    private Long size;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    private String etag;
+
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    private String blob;
+
+    private Long crc32;
+
+    public enum Type {
+        FILE,
+        DIRECTORY
+    }
+}
@@ -0,0 +1,33 @@
+package com.vladsv.cloud_file_storage.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "storage_usage")
+public class StorageUsage {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long bytes;
+
+    @Column(nullable = false)
+    private long objects;
+
+    private Long quota;
+
+    @Column(nullable = false)
+    private long reserved;
+
+    private Instant reservedAt;
+}
@@ -0,0 +1,22 @@
+package com.vladsv.cloud_file_storage.entity;
+
+import lombok.Builder;
+
+@Builder
+public record UploadSession(String id,
+                            Long userId,
+                            String directory,
+                            String name,
+                            String multipartUploadId,
+                            long size,
+                            long chunkSize,
+                            int totalChunks) {
+
+    public String object() {
+        return directory + name;
+    }
+
+    public long expectedChunkSize(int chunkNumber) {
+        return chunkNumber < totalChunks ? chunkSize : size - chunkSize * (totalChunks - 1);
+    }
+}
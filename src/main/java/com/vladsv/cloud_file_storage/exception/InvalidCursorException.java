@@ -0,0 +1,7 @@
+package com.vladsv.cloud_file_storage.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.vladsv.cloud_file_storage.exception;
+
+public class QuotaExceededException extends RuntimeException {
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
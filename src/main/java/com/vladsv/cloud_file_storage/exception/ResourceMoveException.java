@@ -0,0 +1,7 @@
+package com.vladsv.cloud_file_storage.exception;
+
+public class ResourceMoveException extends RuntimeException {
+    public ResourceMoveException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package com.vladsv.cloud_file_storage.exception;
+
+public class StorageUnavailableException extends RuntimeException {
+    public StorageUnavailableException(String message) {
+        super(message);
+    }
+}
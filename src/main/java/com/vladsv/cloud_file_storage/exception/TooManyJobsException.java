@@ -0,0 +1,7 @@
+package com.vladsv.cloud_file_storage.exception;
+
+public class TooManyJobsException extends RuntimeException {
+    public TooManyJobsException(String message) {
+        super(message);
+    }
+}
@@ -71,6 +71,30 @@ public class GlobalExceptionHandler {
         return new ErrorResponseDto(e.getMessage());
     }
 
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidCursorException.class)
+    public ErrorResponseDto handleInvalidCursor(InvalidCursorException e) {
+        return new ErrorResponseDto(e.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(TooManyJobsException.class)
+    public ErrorResponseDto handleTooManyJobs(TooManyJobsException e) {
+        return new ErrorResponseDto(e.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(StorageUnavailableException.class)
+    public ErrorResponseDto handleStorageUnavailable(StorageUnavailableException e) {
+        return new ErrorResponseDto(e.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    @ExceptionHandler(QuotaExceededException.class)
+    public ErrorResponseDto handleQuotaExceeded(QuotaExceededException e) {
+        return new ErrorResponseDto(e.getMessage());
+    }
+
     private String mapToMessage(FieldError error) {
         return error.getField() + ": " + error.getDefaultMessage();
     }
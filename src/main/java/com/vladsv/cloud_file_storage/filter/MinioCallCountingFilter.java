@@ -0,0 +1,34 @@
+package com.vladsv.cloud_file_storage.filter;
+
+import com.vladsv.cloud_file_storage.repository.MinioCallCounter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Exposes the number of MinIO round trips of every request as a request attribute, which tests
+ * read to assert the round-trip budget of an endpoint.
+ */
+@Slf4j
+@Component
+public class MinioCallCountingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        MinioCallCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int calls = MinioCallCounter.stop();
+            request.setAttribute(MinioCallCounter.REQUEST_ATTRIBUTE, calls);
+            log.debug("{} {} made {} MinIO calls", request.getMethod(), request.getRequestURI(), calls);
+        }
+    }
+}
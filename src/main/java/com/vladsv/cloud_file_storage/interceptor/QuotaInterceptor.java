@@ -0,0 +1,39 @@
+package com.vladsv.cloud_file_storage.interceptor;
+
+import com.vladsv.cloud_file_storage.entity.User;
+import com.vladsv.cloud_file_storage.service.StorageUsageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects uploads that don't fit into the quota before the multipart body is read. Runs ahead of
+ * argument resolution, which is where the container would otherwise parse the parts. The
+ * Content-Length of a multipart request slightly overestimates the file sizes, by the part headers.
+ * A chunked request has no Content-Length, streamed parts are then cut off once they exceed the
+ * remaining quota.
+ */
+@Component
+@RequiredArgsConstructor
+public class QuotaInterceptor implements HandlerInterceptor {
+
+    private final StorageUsageService storageUsageService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            storageUsageService.checkQuota(user.getId(), Math.max(0, request.getContentLengthLong()));
+        }
+        return true;
+    }
+}
@@ -5,9 +5,7 @@ import io.minio.StatObjectResponse;
 import io.minio.messages.Item;
 import org.mapstruct.Mapper;
 import org.mapstruct.factory.Mappers;
-import utils.PathUtils;
-
-import static utils.PathUtils.isDir;
+import utils.ResourcePath;
 
 @Mapper
 public interface MinioResourceMapper {
@@ -18,14 +16,15 @@ public interface MinioResourceMapper {
         if (item == null) {
             return null;
         }
-        String relativePath = item.objectName().substring(PathUtils.getUserRootDirectoryPattern(userId).length());
+        ResourcePath relativePath = ResourcePath.ofAbsolute(item.objectName(), userId);
 
-        String path = PathUtils.getPathToResource(relativePath);
-        String name = PathUtils.getResourceNameFromPath(relativePath);
+        String path = relativePath.parent();
+        String name = relativePath.name();
         Long size = item.isDir() ? null : item.size();
         String type = item.isDir() ? "DIRECTORY" : "FILE";
+        String etag = item.isDir() || item.etag() == null ? null : item.etag().replace("\"", "");
 
-        return new ResourceResponseDto(path, name, size, type);
+        return new ResourceResponseDto(path, name, size, type, etag);
     }
 
     default ResourceResponseDto toResourceDto(StatObjectResponse response, Long id) {
@@ -33,15 +32,16 @@ public interface MinioResourceMapper {
             return null;
         }
 
-        String relativePath = response.object().substring(PathUtils.getUserRootDirectoryPattern(id).length());
-        relativePath = relativePath.isEmpty() ? "/" : relativePath;
+        ResourcePath relativePath = ResourcePath.ofAbsolute(response.object(), id);
+        boolean isDir = relativePath.isRoot() || relativePath.isDir();
 
-        String path = PathUtils.getPathToResource(relativePath);
-        String name = PathUtils.getResourceNameFromPath(relativePath);
-        Long size = isDir(relativePath) ? null : response.size();
-        String type = isDir(relativePath) ? "DIRECTORY" : "FILE";
+        String path = relativePath.parent();
+        String name = relativePath.isRoot() ? "/" : relativePath.name();
+        Long size = isDir ? null : response.size();
+        String type = isDir ? "DIRECTORY" : "FILE";
+        String etag = isDir || response.etag() == null ? null : response.etag().replace("\"", "");
 
-        return new ResourceResponseDto(path, name, size, type);
+        return new ResourceResponseDto(path, name, size, type, etag);
     }
 
 }
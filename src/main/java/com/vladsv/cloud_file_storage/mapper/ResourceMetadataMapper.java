@@ -0,0 +1,30 @@
+package com.vladsv.cloud_file_storage.mapper;
+
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.entity.ResourceMetadata;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+import utils.ResourcePath;
+
+@Mapper
+public interface ResourceMetadataMapper {
+
+    ResourceMetadataMapper INSTANCE = Mappers.getMapper(ResourceMetadataMapper.class);
+
+    default ResourceResponseDto toResourceDto(ResourceMetadata resource) {
+        if (resource == null) {
+            return null;
+        }
+
+        ResourcePath relativePath = ResourcePath.of(resource.getPath().isEmpty() ? "/" : resource.getPath());
+        boolean isDirectory = resource.getType() == ResourceMetadata.Type.DIRECTORY;
+
+        String path = relativePath.parent();
+        String name = relativePath.name();
+        Long size = isDirectory ? null : resource.getSize();
+        String etag = isDirectory ? null : resource.getEtag();
+
+        return new ResourceResponseDto(path, name, size, resource.getType().name(), etag);
+    }
+
+}
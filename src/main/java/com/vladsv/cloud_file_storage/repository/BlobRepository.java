@@ -0,0 +1,59 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.vladsv.cloud_file_storage.entity.Blob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface BlobRepository extends JpaRepository<Blob, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO blobs (hash, size, ref_count, updated_at) VALUES (:hash, :size, 1, now())
+            ON CONFLICT (hash) DO UPDATE SET ref_count = blobs.ref_count + 1, updated_at = now()
+            """, nativeQuery = true)
+    void acquire(@Param("hash") String hash, @Param("size") long size);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE blobs SET ref_count = ref_count - 1, updated_at = now() WHERE hash = :hash",
+            nativeQuery = true)
+    void release(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE blobs b SET ref_count = b.ref_count - r.refs, updated_at = now()
+            FROM (SELECT blob, COUNT(*) AS refs FROM resources
+                  WHERE user_id = :userId AND path IN (:paths) AND blob IS NOT NULL
+                  GROUP BY blob) r
+            WHERE b.hash = r.blob
+            """, nativeQuery = true)
+    void releasePaths(@Param("userId") Long userId, @Param("paths") Collection<String> paths);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE blobs b SET ref_count = b.ref_count - r.refs, updated_at = now()
+            FROM (SELECT blob, COUNT(*) AS refs FROM resources
+                  WHERE user_id = :userId AND starts_with(path, :path) AND blob IS NOT NULL
+                  GROUP BY blob) r
+            WHERE b.hash = r.blob
+            """, nativeQuery = true)
+    void releaseTree(@Param("userId") Long userId, @Param("path") String path);
+
+    @Query(value = """
+            SELECT hash FROM blobs
+            WHERE ref_count <= 0 AND updated_at < :before
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<String> lockOrphans(@Param("before") Instant before, @Param("limit") int limit);
+}
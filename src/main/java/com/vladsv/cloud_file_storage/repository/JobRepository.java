@@ -0,0 +1,84 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.vladsv.cloud_file_storage.config.properties.JobProperties;
+import com.vladsv.cloud_file_storage.entity.Job;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+public class JobRepository {
+
+    private static final String JOB_KEY = "job:%s";
+
+    private final StringRedisTemplate redisTemplate;
+    private final JobProperties jobProperties;
+
+    public void save(Job job) {
+        String key = JOB_KEY.formatted(job.id());
+        Map<String, String> fields = new HashMap<>();
+        fields.put("userId", job.userId().toString());
+        fields.put("type", job.type().name());
+        fields.put("status", job.status().name());
+        fields.put("source", job.source());
+        fields.put("objectsProcessed", Long.toString(job.objectsProcessed()));
+        fields.put("bytesProcessed", Long.toString(job.bytesProcessed()));
+        if (job.target() != null) {
+            fields.put("target", job.target());
+        }
+
+        redisTemplate.opsForHash().putAll(key, fields);
+        redisTemplate.expire(key, jobProperties.ttl());
+    }
+
+    public Optional<Job> findById(String id) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(JOB_KEY.formatted(id));
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(Job.builder()
+                .id(id)
+                .userId(Long.valueOf((String) fields.get("userId")))
+                .type(Job.Type.valueOf((String) fields.get("type")))
+                .status(Job.Status.valueOf((String) fields.get("status")))
+                .source((String) fields.get("source"))
+                .target((String) fields.get("target"))
+                .objectsProcessed(Long.parseLong((String) fields.get("objectsProcessed")))
+                .bytesProcessed(Long.parseLong((String) fields.get("bytesProcessed")))
+                .error((String) fields.get("error"))
+                .build());
+    }
+
+    public void updateStatus(String id, Job.Status status, String error) {
+        String key = JOB_KEY.formatted(id);
+        redisTemplate.opsForHash().put(key, "status", status.name());
+        if (error != null) {
+            redisTemplate.opsForHash().put(key, "error", error);
+        }
+        redisTemplate.expire(key, jobProperties.ttl());
+    }
+
+    public void incrementProgress(String id, long objects, long bytes) {
+        String key = JOB_KEY.formatted(id);
+        redisTemplate.opsForHash().increment(key, "objectsProcessed", objects);
+        redisTemplate.opsForHash().increment(key, "bytesProcessed", bytes);
+    }
+
+    public void requestCancel(String id) {
+        redisTemplate.opsForHash().put(JOB_KEY.formatted(id), "cancelRequested", "true");
+    }
+
+    public boolean isCancelRequested(String id) {
+        return redisTemplate.opsForHash().hasKey(JOB_KEY.formatted(id), "cancelRequested");
+    }
+
+    public void delete(String id) {
+        redisTemplate.delete(JOB_KEY.formatted(id));
+    }
+}
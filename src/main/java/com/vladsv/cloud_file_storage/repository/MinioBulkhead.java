@@ -0,0 +1,83 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.vladsv.cloud_file_storage.config.properties.MinioHttpProperties;
+import com.vladsv.cloud_file_storage.exception.StorageUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the MinIO calls in flight. When MinIO slows down, callers wait at most
+ * {@code acquireTimeout} for a permit and then fail with 503, rather than queueing behind the
+ * HTTP client without bound. A GET holds its permit until the response headers arrive, reading
+ * the body is paced by the client and isn't counted. Writes whose body comes from the client are
+ * paced by it as well, so they draw on a separate pool of transfer permits and slow uploads
+ * can't starve stats, copies and removals. Listings are not covered, their pages are fetched
+ * lazily while the caller iterates.
+ */
+@Component
+public class MinioBulkhead {
+
+    private static final String STORAGE_BUSY = "Storage is busy, try again later";
+
+    private final Pool calls;
+    private final Pool transfers;
+
+    public MinioBulkhead(MinioHttpProperties properties, MeterRegistry meterRegistry) {
+        long acquireTimeoutNanos = properties.acquireTimeout().toNanos();
+        this.calls = new Pool("calls", properties.maxConcurrentCalls(), acquireTimeoutNanos, meterRegistry);
+        this.transfers = new Pool("transfers", properties.maxConcurrentTransfers(), acquireTimeoutNanos, meterRegistry);
+    }
+
+    public void acquire() {
+        calls.acquire();
+    }
+
+    public void release() {
+        calls.release();
+    }
+
+    public void acquireTransfer() {
+        transfers.acquire();
+    }
+
+    public void releaseTransfer() {
+        transfers.release();
+    }
+
+    private static final class Pool {
+
+        private final Semaphore permits;
+        private final long acquireTimeoutNanos;
+        private final Counter rejected;
+
+        private Pool(String name, int size, long acquireTimeoutNanos, MeterRegistry meterRegistry) {
+            this.permits = new Semaphore(size);
+            this.acquireTimeoutNanos = acquireTimeoutNanos;
+            this.rejected = meterRegistry.counter("minio.bulkhead.rejected", "pool", name);
+            Gauge.builder("minio.bulkhead.active", permits, semaphore -> size - semaphore.availablePermits())
+                    .tag("pool", name)
+                    .register(meterRegistry);
+        }
+
+        private void acquire() {
+            try {
+                if (permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rejected.increment();
+            throw new StorageUnavailableException(STORAGE_BUSY);
+        }
+
+        private void release() {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts MinIO round trips made on behalf of the current request. The counter is bound to the
+ * request thread only, work fanned out to other threads is counted once it's wrapped with
+ * {@link #propagate(Callable)}. Pooled threads never pick up the counter of whichever request
+ * happened to start them.
+ */
+@UtilityClass
+public class MinioCallCounter {
+
+    public static final String REQUEST_ATTRIBUTE = MinioCallCounter.class.getName() + ".count";
+
+    private static final ThreadLocal<AtomicInteger> COUNTER = new ThreadLocal<>();
+
+    public static void start() {
+        COUNTER.set(new AtomicInteger());
+    }
+
+    public static int stop() {
+        AtomicInteger counter = COUNTER.get();
+        COUNTER.remove();
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Binds the counter of the calling thread to the task for as long as it runs.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        AtomicInteger counter = COUNTER.get();
+        if (counter == null) {
+            return task;
+        }
+
+        return () -> {
+            AtomicInteger previous = COUNTER.get();
+            COUNTER.set(counter);
+            try {
+                return task.call();
+            } finally {
+                COUNTER.set(previous);
+            }
+        };
+    }
+
+    static void increment() {
+        AtomicInteger counter = COUNTER.get();
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+}
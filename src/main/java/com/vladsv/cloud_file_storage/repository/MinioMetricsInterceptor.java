@@ -0,0 +1,192 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Sink;
+import okio.Source;
+
+import java.io.IOException;
+
+/**
+ * Times every HTTP call the MinIO clients make and counts the bytes sent and received, tagged by
+ * the S3 operation. Sitting on the HTTP client rather than in {@link MinioRepository} it also sees
+ * multipart calls and retries. The latency of a GET is the time to its response headers, the body
+ * is streamed to the caller afterwards and shows up in the byte counters.
+ */
+public class MinioMetricsInterceptor implements Interceptor {
+
+    private static final String REQUESTS = "minio.requests";
+    private static final String ERRORS = "minio.errors";
+    private static final String BYTES = "minio.bytes";
+    private static final String COPY_SOURCE_HEADER = "x-amz-copy-source";
+
+    private final MeterRegistry meterRegistry;
+
+    public MinioMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String operation = getOperation(request);
+        if (request.body() != null) {
+            request = request.newBuilder()
+                    .method(request.method(), new CountingRequestBody(request.body(), getBytes(operation, "out")))
+                    .build();
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            record(sample, operation, "io_error");
+            throw e;
+        }
+
+        record(sample, operation, getOutcome(response.code()));
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new CountingResponseBody(body, getBytes(operation, "in")))
+                .build();
+    }
+
+    private void record(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder(REQUESTS)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        if (!"success".equals(outcome)) {
+            meterRegistry.counter(ERRORS, "operation", operation, "outcome", outcome).increment();
+        }
+    }
+
+    private Counter getBytes(String operation, String direction) {
+        return meterRegistry.counter(BYTES, "operation", operation, "direction", direction);
+    }
+
+    /**
+     * Missing keys and lost conditional writes are expected answers, so they get outcomes of
+     * their own rather than being lumped in with client errors.
+     */
+    private static String getOutcome(int code) {
+        if (code < 300) {
+            return "success";
+        }
+        if (code == 404) {
+            return "not_found";
+        }
+        if (code == 412) {
+            return "precondition_failed";
+        }
+        return code < 500 ? "client_error" : "server_error";
+    }
+
+    private static String getOperation(Request request) {
+        String query = request.url().query() == null ? "" : request.url().query();
+        return switch (request.method()) {
+            case "HEAD" -> "stat";
+            case "GET" -> query.contains("list-type") || query.contains("uploadId")
+                    ? "list"
+                    : query.contains("location") ? "bucket" : "get";
+            case "PUT" -> request.header(COPY_SOURCE_HEADER) != null ? "copy" : "put";
+            case "DELETE" -> "remove";
+            case "POST" -> query.contains("delete") ? "remove" : "put";
+            default -> "other";
+        };
+    }
+
+    private static final class CountingRequestBody extends RequestBody {
+
+        private final RequestBody delegate;
+        private final Counter counter;
+
+        private CountingRequestBody(RequestBody delegate, Counter counter) {
+            this.delegate = delegate;
+            this.counter = counter;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return delegate.isOneShot();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            Sink counting = new ForwardingSink(sink) {
+                @Override
+                public void write(Buffer source, long byteCount) throws IOException {
+                    super.write(source, byteCount);
+                    counter.increment(byteCount);
+                }
+            };
+            BufferedSink buffered = Okio.buffer(counting);
+            delegate.writeTo(buffered);
+            buffered.flush();
+        }
+    }
+
+    private static final class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        private CountingResponseBody(ResponseBody delegate, Counter counter) {
+            this.delegate = delegate;
+            Source counting = new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        counter.increment(read);
+                    }
+                    return read;
+                }
+            };
+            this.source = Okio.buffer(counting);
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
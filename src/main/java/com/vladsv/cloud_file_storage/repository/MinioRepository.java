@@ -1,102 +1,279 @@
 package com.vladsv.cloud_file_storage.repository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.vladsv.cloud_file_storage.config.properties.CompressionProperties;
 import io.minio.*;
 import io.minio.errors.*;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
+import io.minio.messages.Part;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
+import utils.FramedDeflateCodec;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class MinioRepository {
 
+    private static final String NO_SUCH_KEY = "NoSuchKey";
+    private static final String PRECONDITION_FAILED = "PreconditionFailed";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String CODEC = "codec";
+    private static final String FRAME_SIZE = "frame-size";
+    private static final String CODEC_HEADER = "x-amz-meta-" + CODEC;
+    private static final String FRAME_SIZE_HEADER = "x-amz-meta-" + FRAME_SIZE;
+    private static final String STORED_SIZE_HEADER = "x-stored-size";
+
     private final MinioClient minioClient;
+    private final MultipartMinioClient multipartMinioClient;
+    private final Cache<String, Optional<StatObjectResponse>> minioStatCache;
+    private final CompressionProperties compressionProperties;
+    private final MinioBulkhead minioBulkhead;
 
     @Value("${spring.minio.bucket_name}")
     private String bucketName;
 
+    @Value("${spring.minio.part_size:10485760}")
+    private long partSize;
+
     public StatObjectResponse statObject(String path) {
+        Optional<StatObjectResponse> cached = minioStatCache.getIfPresent(path);
+        if (cached != null && cached.isPresent()) {
+            return cached.get();
+        }
+
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
         try {
-            return minioClient.statObject(StatObjectArgs.builder()
+            StatObjectResponse response = toLogicalStat(minioClient.statObject(StatObjectArgs.builder()
                     .bucket(bucketName)
                     .object(path)
-                    .build());
+                    .build()));
+            minioStatCache.put(path, Optional.of(response));
+            return response;
         } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
                  InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
                  XmlParserException e) {
             throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
+        }
+    }
+
+    /**
+     * Single HEAD that doubles as the existence check, empty if there's no such object.
+     */
+    public Optional<StatObjectResponse> findObject(String path) {
+        Optional<StatObjectResponse> cached = minioStatCache.getIfPresent(path);
+        if (cached != null) {
+            return cached;
+        }
+
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
+        try {
+            Optional<StatObjectResponse> response = Optional.of(toLogicalStat(minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(path)
+                    .build())));
+            minioStatCache.put(path, response);
+            return response;
+        } catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                minioStatCache.put(path, Optional.empty());
+                return Optional.empty();
+            }
+            throw new RuntimeException(e);
+        } catch (InsufficientDataException | InternalException | InvalidKeyException | InvalidResponseException |
+                 IOException | NoSuchAlgorithmException | ServerException | XmlParserException e) {
+            throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
         }
     }
 
+    /**
+     * Objects put through a presigned link never pass this repository, so a miss cached for
+     * their key before the upload would hide them.
+     */
+    public void evictStat(String path) {
+        minioStatCache.invalidate(path);
+    }
+
     public InputStream getObject(String path) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
         try {
-            return minioClient.getObject(GetObjectArgs.builder()
+            GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
                     .bucket(bucketName)
                     .object(path)
                     .build());
+            return FramedDeflateCodec.NAME.equals(response.headers().get(CODEC_HEADER))
+                    ? FramedDeflateCodec.decode(response)
+                    : response;
         } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
                  InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
                  XmlParserException e) {
             throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
+        }
+    }
+
+    /**
+     * Ranged read in logical bytes. For a compressed object it costs the stat, which is usually
+     * cached, a GET of the index entries of the covered frames and a GET of those frames.
+     */
+    public InputStream getObject(String path, long offset, long length) {
+        StatObjectResponse stat = statObject(path);
+        String storedSize = stat.headers().get(STORED_SIZE_HEADER);
+        if (storedSize == null) {
+            return getStoredObject(path, offset, length);
         }
+
+        long frameSize = Long.parseLong(stat.headers().get(FRAME_SIZE_HEADER));
+        int frameCount = (int) ((stat.size() + frameSize - 1) / frameSize);
+        int first = (int) (offset / frameSize);
+        int last = (int) ((offset + length - 1) / frameSize);
+        long indexOffset = Long.parseLong(storedSize) - FramedDeflateCodec.FOOTER_LENGTH
+                - (long) FramedDeflateCodec.INDEX_ENTRY_LENGTH * frameCount;
+
+        int entries = Math.min(last + 2, frameCount) - first;
+        long[] frameOffsets = FramedDeflateCodec.readOffsets(readStoredRange(path,
+                indexOffset + (long) FramedDeflateCodec.INDEX_ENTRY_LENGTH * first,
+                (long) FramedDeflateCodec.INDEX_ENTRY_LENGTH * entries));
+        long end = last + 1 < frameCount
+                ? frameOffsets[last + 1 - first]
+                : indexOffset - FramedDeflateCodec.END_MARKER_LENGTH;
+        return FramedDeflateCodec.decode(getStoredObject(path, frameOffsets[0], end - frameOffsets[0]),
+                offset - first * frameSize, length);
     }
 
-    public void putObject(String path, MultipartFile file) {
+    public boolean isCompressed(String path) {
+        return statObject(path).headers().get(STORED_SIZE_HEADER) != null;
+    }
+
+    public void putObject(String path, InputStream stream, String contentType) {
+        putObject(path, stream, contentType, Map.of());
+    }
+
+    public void putObject(String path, InputStream stream, String contentType, Map<String, String> userMetadata) {
+        MinioCallCounter.increment();
+        boolean compressed = isCompressible(contentType);
+        minioBulkhead.acquireTransfer();
         try {
             minioClient.putObject(PutObjectArgs.builder()
                     .bucket(bucketName)
                     .object(path)
-                    .stream(file.getInputStream(), file.getSize(), -1)
-                    .contentType(file.getContentType())
+                    .stream(compressed ? encode(stream) : stream, -1, partSize)
+                    .contentType(contentType == null ? "application/octet-stream" : contentType)
+                    .userMetadata(compressed ? withCodecMetadata(userMetadata) : userMetadata)
                     .build());
+            minioStatCache.invalidate(path);
         } catch (ErrorResponseException | InvalidKeyException | InvalidResponseException | IOException |
                  NoSuchAlgorithmException | ServerException | XmlParserException | InternalException |
                  InsufficientDataException e) {
             throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.releaseTransfer();
         }
     }
 
-    public Iterable<Result<Item>> listObjects(String path) {
-        return listObjects(path, false);
+    /**
+     * Conditional {@code If-None-Match: *} write, returns the new object's etag or empty if the
+     * key is already taken.
+     */
+    public Optional<String> createObject(String path, MultipartFile file) {
+        try {
+            return createObject(path, file.getInputStream(), file.getSize(), file.getContentType());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    public Iterable<Result<Item>> listObjects(String path, boolean recursive) {
-        return minioClient.listObjects(ListObjectsArgs.builder()
-                .bucket(bucketName)
-                .prefix(path)
-                .recursive(recursive)
-                .build());
+    public Optional<String> createObject(String path, InputStream stream, String contentType) {
+        return createObject(path, stream, -1, contentType);
+    }
+
+    public Optional<String> createEmptyObject(String path) {
+        return createObject(path, new ByteArrayInputStream(new byte[]{}), 0, null);
     }
 
-    public void putEmptyObject(String path) {
+    public Optional<String> createObject(String path, InputStream stream, long size, String contentType) {
+        MinioCallCounter.increment();
+        boolean compressed = isCompressible(contentType);
+        long storedSize = compressed ? -1 : size;
+        boolean transfer = size != 0;
+        if (transfer) {
+            minioBulkhead.acquireTransfer();
+        } else {
+            minioBulkhead.acquire();
+        }
         try {
-            minioClient.putObject(PutObjectArgs.builder()
+            ObjectWriteResponse response = minioClient.putObject(PutObjectArgs.builder()
                     .bucket(bucketName)
                     .object(path)
-                    .stream(new ByteArrayInputStream(new byte[]{}), 0, -1)
+                    .stream(compressed ? encode(stream) : stream, storedSize, storedSize < 0 ? partSize : -1)
+                    .contentType(contentType == null ? "application/octet-stream" : contentType)
+                    .userMetadata(compressed ? withCodecMetadata(Map.of()) : Map.of())
+                    .extraHeaders(Map.of(IF_NONE_MATCH, "*"))
                     .build());
-        } catch (ErrorResponseException | InvalidKeyException | InvalidResponseException | IOException |
-                 NoSuchAlgorithmException | ServerException | XmlParserException | InternalException |
-                 InsufficientDataException e) {
+            minioStatCache.invalidate(path);
+            return Optional.of(response.etag().replace("\"", ""));
+        } catch (ErrorResponseException e) {
+            if (PRECONDITION_FAILED.equals(e.errorResponse().code())) {
+                return Optional.empty();
+            }
             throw new RuntimeException(e);
+        } catch (InvalidKeyException | InvalidResponseException | IOException | NoSuchAlgorithmException |
+                 ServerException | XmlParserException | InternalException | InsufficientDataException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (transfer) {
+                minioBulkhead.releaseTransfer();
+            } else {
+                minioBulkhead.release();
+            }
         }
     }
 
+    public Iterable<Result<Item>> listObjects(String path) {
+        return listObjects(path, false);
+    }
+
+    public Iterable<Result<Item>> listObjects(String path, boolean recursive) {
+        MinioCallCounter.increment();
+        return minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(path)
+                .recursive(recursive)
+                .build());
+    }
+
     public void copyObject(String source, String target) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
         try {
             minioClient.copyObject(CopyObjectArgs.builder()
                     .bucket(bucketName)
@@ -106,27 +283,37 @@ public class MinioRepository {
                             .object(source)
                             .build())
                     .build());
+            minioStatCache.invalidate(target);
         } catch (ErrorResponseException | InvalidKeyException | InvalidResponseException | IOException |
                  NoSuchAlgorithmException | ServerException | XmlParserException | InternalException |
                  InsufficientDataException e) {
             throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
         }
     }
 
     public void removeObject(String path) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
         try {
             minioClient.removeObject(RemoveObjectArgs.builder()
                     .bucket(bucketName)
                     .object(path)
                     .build());
+            minioStatCache.invalidate(path);
         } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
                  InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
                  XmlParserException e) {
             throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
         }
     }
 
     public void removeObjects(List<String> objects) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
         try {
             List<DeleteObject> deleteObjectList = new LinkedList<>(objects.stream()
                     .map(DeleteObject::new)
@@ -139,23 +326,179 @@ public class MinioRepository {
                 DeleteError error = result.get();
                 log.debug("Error in deleting object {}; {}", error.objectName(), error.message());
             }
+            minioStatCache.invalidateAll(objects);
         } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
                  InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
                  XmlParserException e) {
             throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
+        }
+    }
+
+    public String createMultipartUpload(String path, String contentType) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
+        try {
+            return multipartMinioClient.initiate(bucketName, path, contentType);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
+        }
+    }
+
+    public String uploadPart(String path, String uploadId, int partNumber, InputStream stream, long length) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquireTransfer();
+        try {
+            return multipartMinioClient.putPart(bucketName, path, uploadId, partNumber, stream, length);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.releaseTransfer();
+        }
+    }
+
+    /**
+     * Conditional {@code If-None-Match: *} completion, returns the new object's etag or empty if
+     * the key has been taken since the upload started. The upload is left in place then.
+     */
+    public Optional<String> completeMultipartUpload(String path, String uploadId, Map<Integer, String> parts) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
+        try {
+            Part[] sortedParts = parts.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(entry -> new Part(entry.getKey(), entry.getValue()))
+                    .toArray(Part[]::new);
+            String etag = multipartMinioClient.complete(bucketName, path, uploadId, sortedParts,
+                    Map.of(IF_NONE_MATCH, "*"));
+            minioStatCache.invalidate(path);
+            return Optional.of(etag.replace("\"", ""));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ErrorResponseException response
+                    && PRECONDITION_FAILED.equals(response.errorResponse().code())) {
+                return Optional.empty();
+            }
+            throw new RuntimeException(e);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
+        }
+    }
+
+    public Map<Integer, String> listParts(String path, String uploadId) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
+        try {
+            return multipartMinioClient.listParts(bucketName, path, uploadId);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
+        }
+    }
+
+    public void abortMultipartUpload(String path, String uploadId) {
+        MinioCallCounter.increment();
+        minioBulkhead.acquire();
+        try {
+            multipartMinioClient.abort(bucketName, path, uploadId);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            minioBulkhead.release();
         }
     }
 
     public boolean isResourceExists(String name) {
+        return findObject(name).isPresent();
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (!compressionProperties.enabled() || contentType == null) {
+            return false;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            return compressionProperties.types().stream()
+                    .map(MediaType::parseMediaType)
+                    .anyMatch(rule -> rule.includes(type));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private InputStream encode(InputStream stream) {
+        return FramedDeflateCodec.encode(stream, (int) compressionProperties.frameSize().toBytes(),
+                compressionProperties.level());
+    }
+
+    private Map<String, String> withCodecMetadata(Map<String, String> userMetadata) {
+        Map<String, String> metadata = new HashMap<>(userMetadata);
+        metadata.put(CODEC, FramedDeflateCodec.NAME);
+        metadata.put(FRAME_SIZE, String.valueOf(compressionProperties.frameSize().toBytes()));
+        return metadata;
+    }
+
+    /**
+     * Reports the logical size of a compressed object as its size, read from the footer, and
+     * keeps the stored one in a separate header for ranged reads.
+     */
+    private StatObjectResponse toLogicalStat(StatObjectResponse stat) throws IOException {
+        Headers headers = stat.headers();
+        if (!FramedDeflateCodec.NAME.equals(headers.get(CODEC_HEADER))) {
+            return stat;
+        }
+
+        long storedSize = stat.size();
+        byte[] footer;
+        try (InputStream in = fetchStoredObject(stat.object(), storedSize - FramedDeflateCodec.FOOTER_LENGTH,
+                FramedDeflateCodec.FOOTER_LENGTH)) {
+            footer = in.readAllBytes();
+        }
+        Headers logicalHeaders = headers.newBuilder()
+                .set(HttpHeaders.CONTENT_LENGTH, String.valueOf(FramedDeflateCodec.readLogicalSize(footer)))
+                .set(STORED_SIZE_HEADER, String.valueOf(storedSize))
+                .build();
+        return new StatObjectResponse(logicalHeaders, stat.bucket(), stat.region(), stat.object());
+    }
+
+    private InputStream getStoredObject(String path, long offset, long length) {
+        minioBulkhead.acquire();
         try {
-            minioClient.statObject(StatObjectArgs.builder()
+            return fetchStoredObject(path, offset, length);
+        } finally {
+            minioBulkhead.release();
+        }
+    }
+
+    /**
+     * Ranged GET without a permit of its own, for reads made while the caller already holds one,
+     * like the footer read of a stat.
+     */
+    private InputStream fetchStoredObject(String path, long offset, long length) {
+        MinioCallCounter.increment();
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
                     .bucket(bucketName)
-                    .object(name)
+                    .object(path)
+                    .offset(offset)
+                    .length(length)
                     .build());
-            return true;
-        } catch (ErrorResponseException e) {
-            return false;
-        } catch (Exception e) {
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private byte[] readStoredRange(String path, long offset, long length) {
+        try (InputStream in = getStoredObject(path, offset, length)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
@@ -0,0 +1,61 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public String initiate(String bucket, String object, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-Type", contentType);
+        return createMultipartUploadAsync(bucket, null, object, headers, null)
+                .get()
+                .result()
+                .uploadId();
+    }
+
+    public String putPart(String bucket, String object, String uploadId, int partNumber,
+                          InputStream stream, long length) throws Exception {
+        return uploadPartAsync(bucket, null, object, stream, length, uploadId, partNumber, null, null)
+                .get()
+                .etag();
+    }
+
+    public String complete(String bucket, String object, String uploadId, Part[] parts,
+                           Map<String, String> extraHeaders) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        extraHeaders.forEach(headers::put);
+        return completeMultipartUploadAsync(bucket, null, object, uploadId, parts, headers, null)
+                .get()
+                .etag();
+    }
+
+    public Map<Integer, String> listParts(String bucket, String object, String uploadId) throws Exception {
+        Map<Integer, String> parts = new TreeMap<>();
+        Integer partNumberMarker = null;
+        ListPartsResult result;
+        do {
+            result = listPartsAsync(bucket, null, object, 1000, partNumberMarker, uploadId, null, null)
+                    .get()
+                    .result();
+            result.partList().forEach(part -> parts.put(part.partNumber(), part.etag()));
+            partNumberMarker = result.nextPartNumberMarker();
+        } while (result.isTruncated());
+        return parts;
+    }
+
+    public void abort(String bucket, String object, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucket, null, object, uploadId, null, null).get();
+    }
+}
@@ -0,0 +1,93 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.vladsv.cloud_file_storage.config.properties.MinioProperties;
+import com.vladsv.cloud_file_storage.config.properties.PresignedProperties;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.PostPolicy;
+import io.minio.errors.*;
+import io.minio.http.Method;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class PresignedUrlRepository {
+
+    private final MinioClient presignClient;
+    private final String bucketName;
+    private final String bucketUrl;
+    private final int expirySeconds;
+
+    public PresignedUrlRepository(MinioProperties minioProperties, PresignedProperties presignedProperties) {
+        String endpoint = presignedProperties.publicEndpoint() == null
+                ? minioProperties.endpoint()
+                : presignedProperties.publicEndpoint();
+
+        this.presignClient = MinioClient.builder()
+                .endpoint(endpoint)
+                .region(presignedProperties.region())
+                .credentials(minioProperties.username(), minioProperties.password()).build();
+        this.bucketName = minioProperties.bucketName();
+        this.bucketUrl = endpoint.replaceAll("/+$", "") + "/" + bucketName;
+        this.expirySeconds = (int) presignedProperties.expiry().toSeconds();
+    }
+
+    public int getExpirySeconds() {
+        return expirySeconds;
+    }
+
+    public String getDownloadUrl(String path, String contentDisposition) {
+        return presign(Method.GET, path, Map.of("response-content-disposition", contentDisposition));
+    }
+
+    public String getUploadUrl() {
+        return bucketUrl;
+    }
+
+    /**
+     * Form fields of a browser-based POST upload. Unlike a presigned PUT, the signed policy pins
+     * the key and the exact number of bytes, so the link can't store more than was declared.
+     */
+    public Map<String, String> getUploadFormData(String path, long size) {
+        PostPolicy policy = new PostPolicy(bucketName, ZonedDateTime.now().plusSeconds(expirySeconds));
+        policy.addEqualsCondition("key", path);
+        policy.addContentLengthRangeCondition(size, size);
+        try {
+            Map<String, String> fields = new HashMap<>(presignClient.getPresignedPostFormData(policy));
+            fields.put("key", path);
+            return fields;
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public String getPartUploadUrl(String path, String uploadId, int partNumber) {
+        return presign(Method.PUT, path, Map.of(
+                "uploadId", uploadId,
+                "partNumber", Integer.toString(partNumber)));
+    }
+
+    private String presign(Method method, String path, Map<String, String> queryParams) {
+        try {
+            return presignClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(method)
+                    .bucket(bucketName)
+                    .object(path)
+                    .expiry(expirySeconds)
+                    .extraQueryParams(queryParams)
+                    .build());
+        } catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidKeyException |
+                 InvalidResponseException | IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.vladsv.cloud_file_storage.entity.ResourceMetadata;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface ResourceMetadataRepository extends JpaRepository<ResourceMetadata, Long> {
+
+    Optional<ResourceMetadata> findByUserIdAndPath(Long userId, String path);
+
+    boolean existsByUserIdAndPath(Long userId, String path);
+
+    boolean existsByUserIdAndBlob(Long userId, String blob);
+
+    @Query("select r.blob from ResourceMetadata r where r.userId = :userId and r.path = :path")
+    Optional<String> findBlobByUserIdAndPath(@Param("userId") Long userId, @Param("path") String path);
+
+    @Query("select r.etag from ResourceMetadata r where r.userId = :userId and r.path = :path")
+    Optional<String> findEtagByUserIdAndPath(@Param("userId") Long userId, @Param("path") String path);
+
+    List<ResourceMetadata> findAllByUserIdAndPathStartingWithAndPathNot(Long userId, String path, String excluded);
+
+    @Query("select r.path from ResourceMetadata r where r.userId = :userId and r.blob is not null")
+    List<String> findBlobPaths(@Param("userId") Long userId);
+
+    List<ResourceMetadata> findAllByUserIdAndParentAndPathGreaterThanOrderByPathAsc(Long userId, String parent,
+                                                                                     String path, Limit limit);
+
+    List<ResourceMetadata> findAllByUserIdAndPathNot(Long userId, String path);
+
+    @Query("select r.path from ResourceMetadata r where r.userId = :userId and r.path in :paths")
+    Set<String> findExistingPaths(@Param("userId") Long userId, @Param("paths") Collection<String> paths);
+
+    @Modifying
+    @Query("""
+            update ResourceMetadata r set r.crc32 = :crc32
+            where r.userId = :userId and r.path = :path and r.etag = :etag
+            """)
+    void updateCrc32(@Param("userId") Long userId, @Param("path") String path, @Param("etag") String etag,
+                     @Param("crc32") long crc32);
+
+    @Modifying
+    @Query("delete from ResourceMetadata r where r.userId = :userId and r.path in :paths")
+    void deleteAllByUserIdAndPathIn(@Param("userId") Long userId, @Param("paths") Collection<String> paths);
+
+    @Modifying
+    @Query(value = "DELETE FROM resources WHERE user_id = :userId AND starts_with(path, :path)", nativeQuery = true)
+    void deleteTree(@Param("userId") Long userId, @Param("path") String path);
+
+    @Modifying
+    @Query("delete from ResourceMetadata r where r.userId = :userId and r.blob is null")
+    void deleteAllStoredByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+            UPDATE resources
+            SET path = :target || substr(path, length(:source) + 1),
+                parent = CASE WHEN path = :source THEN :targetParent
+                              ELSE :target || substr(parent, length(:source) + 1) END,
+                name = CASE WHEN path = :source THEN :targetName ELSE name END
+            WHERE user_id = :userId AND starts_with(path, :source)
+            """, nativeQuery = true)
+    void moveDirectory(@Param("userId") Long userId,
+                       @Param("source") String source,
+                       @Param("target") String target,
+                       @Param("targetParent") String targetParent,
+                       @Param("targetName") String targetName);
+
+    @Query(value = """
+            SELECT CAST(COALESCE(SUM(size), 0) AS bigint) AS bytes, COUNT(*) AS objects FROM resources
+            WHERE user_id = :userId AND type = 'FILE'
+            """, nativeQuery = true)
+    FileTotals sumFiles(@Param("userId") Long userId);
+
+    @Query(value = """
+            SELECT CAST(COALESCE(SUM(size), 0) AS bigint) AS bytes, COUNT(*) AS objects FROM resources
+            WHERE user_id = :userId AND type = 'FILE' AND path IN (:paths)
+            """, nativeQuery = true)
+    FileTotals sumFiles(@Param("userId") Long userId, @Param("paths") Collection<String> paths);
+
+    @Query(value = """
+            SELECT CAST(COALESCE(SUM(size), 0) AS bigint) AS bytes, COUNT(*) AS objects FROM resources
+            WHERE user_id = :userId AND type = 'FILE' AND starts_with(path, :path)
+            """, nativeQuery = true)
+    FileTotals sumTree(@Param("userId") Long userId, @Param("path") String path);
+
+    @Query(value = """
+            SELECT u.id FROM users u
+            WHERE NOT EXISTS (SELECT 1 FROM resources r WHERE r.user_id = u.id AND r.path = '')
+            """, nativeQuery = true)
+    List<Long> findUserIdsWithoutIndex();
+
+    interface FileTotals {
+
+        long getBytes();
+
+        long getObjects();
+    }
+}
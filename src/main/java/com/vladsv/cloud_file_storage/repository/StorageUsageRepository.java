@@ -0,0 +1,48 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.vladsv.cloud_file_storage.entity.StorageUsage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from StorageUsage u where u.userId = :userId")
+    Optional<StorageUsage> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO storage_usage (user_id, bytes, objects) VALUES (:userId, :bytes, :objects)
+            ON CONFLICT (user_id) DO UPDATE
+            SET bytes = storage_usage.bytes + excluded.bytes,
+                objects = storage_usage.objects + excluded.objects
+            """, nativeQuery = true)
+    void add(@Param("userId") Long userId, @Param("bytes") long bytes, @Param("objects") long objects);
+
+    /**
+     * Adds {@code bytes} to the reservations of the user only if they still fit into the quota
+     * next to the stored bytes and the other reservations, returns 0 if they don't.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE storage_usage
+            SET reserved = reserved + :bytes, reserved_at = now()
+            WHERE user_id = :userId AND bytes + reserved + :bytes <= COALESCE(quota, :defaultQuota)
+            """, nativeQuery = true)
+    int reserve(@Param("userId") Long userId, @Param("bytes") long bytes, @Param("defaultQuota") long defaultQuota);
+
+    @Modifying
+    @Query(value = "UPDATE storage_usage SET reserved = GREATEST(reserved - :bytes, 0) WHERE user_id = :userId",
+            nativeQuery = true)
+    void release(@Param("userId") Long userId, @Param("bytes") long bytes);
+
+    @Query(value = "SELECT id FROM users", nativeQuery = true)
+    List<Long> findAllUserIds();
+}
@@ -0,0 +1,72 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.vladsv.cloud_file_storage.config.properties.UploadProperties;
+import com.vladsv.cloud_file_storage.entity.UploadSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Component
+@RequiredArgsConstructor
+public class UploadSessionRepository {
+
+    private static final String SESSION_KEY = "upload-session:%s";
+    private static final String CHUNKS_KEY = "upload-session:%s:chunks";
+
+    private final StringRedisTemplate redisTemplate;
+    private final UploadProperties uploadProperties;
+
+    public void save(UploadSession session) {
+        String key = SESSION_KEY.formatted(session.id());
+        redisTemplate.opsForHash().putAll(key, Map.of(
+                "userId", session.userId().toString(),
+                "directory", session.directory(),
+                "name", session.name(),
+                "multipartUploadId", session.multipartUploadId(),
+                "size", Long.toString(session.size()),
+                "chunkSize", Long.toString(session.chunkSize()),
+                "totalChunks", Integer.toString(session.totalChunks())));
+        redisTemplate.expire(key, uploadProperties.sessionTtl());
+    }
+
+    public Optional<UploadSession> findById(String id) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(SESSION_KEY.formatted(id));
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(UploadSession.builder()
+                .id(id)
+                .userId(Long.valueOf((String) fields.get("userId")))
+                .directory((String) fields.get("directory"))
+                .name((String) fields.get("name"))
+                .multipartUploadId((String) fields.get("multipartUploadId"))
+                .size(Long.parseLong((String) fields.get("size")))
+                .chunkSize(Long.parseLong((String) fields.get("chunkSize")))
+                .totalChunks(Integer.parseInt((String) fields.get("totalChunks")))
+                .build());
+    }
+
+    public void saveChunk(String id, int chunkNumber, String etag) {
+        String key = CHUNKS_KEY.formatted(id);
+        redisTemplate.opsForHash().put(key, Integer.toString(chunkNumber), etag);
+        redisTemplate.expire(key, uploadProperties.sessionTtl());
+        redisTemplate.expire(SESSION_KEY.formatted(id), uploadProperties.sessionTtl());
+    }
+
+    public Map<Integer, String> findChunks(String id) {
+        Map<Integer, String> chunks = new TreeMap<>();
+        redisTemplate.opsForHash().entries(CHUNKS_KEY.formatted(id))
+                .forEach((number, etag) -> chunks.put(Integer.valueOf((String) number), (String) etag));
+        return chunks;
+    }
+
+    public void delete(String id) {
+        redisTemplate.delete(SESSION_KEY.formatted(id));
+        redisTemplate.delete(CHUNKS_KEY.formatted(id));
+    }
+}
@@ -0,0 +1,337 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.ArchiveProperties;
+import com.vladsv.cloud_file_storage.repository.MinioCallCounter;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import io.minio.messages.Item;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static utils.PathUtils.isDir;
+
+@Service
+public class ArchiveService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MinioRepository minioRepository;
+    private final ResourceMetadataService resourceMetadataService;
+    private final ArchiveProperties archiveProperties;
+    /**
+     * Bytes of prefetched content all archives being written may hold at once, so concurrent
+     * downloads can't multiply the memory budget.
+     */
+    private final Semaphore prefetchMemory;
+    private final long maxBufferedSize;
+
+    public ArchiveService(MinioRepository minioRepository, ResourceMetadataService resourceMetadataService,
+                          ArchiveProperties archiveProperties) {
+        int budget = (int) Math.min(Integer.MAX_VALUE, archiveProperties.memoryBudget().toBytes());
+        this.minioRepository = minioRepository;
+        this.resourceMetadataService = resourceMetadataService;
+        this.archiveProperties = archiveProperties;
+        this.prefetchMemory = new Semaphore(budget);
+        this.maxBufferedSize = Math.min(budget, archiveProperties.maxBufferedObjectSize().toBytes());
+    }
+
+    public boolean isStoredMode() {
+        return archiveProperties.mode() == ArchiveProperties.Mode.STORED;
+    }
+
+    public void writeZip(String basePath, List<Item> items, OutputStream outputStream) throws IOException {
+        writeZip(basePath, items, outputStream, ProgressListener.NONE);
+    }
+
+    public void writeZip(String basePath, List<Item> items, OutputStream outputStream, ProgressListener listener)
+            throws IOException {
+        List<MediaType> incompressibleTypes = archiveProperties.incompressibleTypes().stream()
+                .map(MediaType::parseMediaType)
+                .toList();
+        boolean[] wanted = new boolean[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            wanted[i] = !isDir(items.get(i).objectName());
+        }
+
+        try (Prefetcher prefetcher = new Prefetcher(items, wanted);
+             ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < items.size(); i++) {
+                if (listener.isCancelled()) {
+                    throw new CancellationException();
+                }
+                String name = items.get(i).objectName().substring(basePath.length());
+                zipOutputStream.setLevel(isIncompressible(name, incompressibleTypes)
+                        ? Deflater.NO_COMPRESSION
+                        : Deflater.DEFAULT_COMPRESSION);
+                zipOutputStream.putNextEntry(new ZipEntry(name));
+                if (wanted[i]) {
+                    try (InputStream in = prefetcher.open(i)) {
+                        in.transferTo(zipOutputStream);
+                    }
+                }
+                zipOutputStream.closeEntry();
+                listener.onProgress(1, items.get(i).size());
+            }
+        }
+    }
+
+    /**
+     * Writes the given range of a stored archive. The CRC of an entry goes into its local header,
+     * so streaming readers can check it, and is needed whenever that header or the central
+     * directory falls into the range. It's recorded at upload time, so usually only the requested
+     * bytes are read. Files uploaded without it, through a presigned link or an upload session,
+     * are read once for it the first time it's needed and the result is kept in the index.
+     */
+    public void writeStoredZip(StoredZipArchive archive, long offset, long length, OutputStream outputStream)
+            throws IOException {
+        List<StoredZipArchive.Entry> entries = archive.entries();
+        RangeOutputStream sink = new RangeOutputStream(outputStream, offset, offset + length);
+        boolean centralDirectoryRequested = sink.overlaps(archive.centralDirectoryOffset(), archive.length());
+
+        boolean[] wanted = new boolean[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            StoredZipArchive.Entry entry = entries.get(i);
+            wanted[i] = !entry.isDirectory() && (sink.overlaps(entry.dataOffset(), entry.dataEnd())
+                    || entry.crc32() == null && needsCrc(entry, sink, centralDirectoryRequested));
+        }
+
+        long[] crcs = new long[entries.size()];
+        try (Prefetcher prefetcher = new Prefetcher(entries.stream().map(StoredZipArchive.Entry::item).toList(), wanted)) {
+            for (int i = 0; i < entries.size() && sink.isOpen(); i++) {
+                StoredZipArchive.Entry entry = entries.get(i);
+                byte[] content = wanted[i] ? prefetcher.buffered(i) : null;
+                if (entry.crc32() != null) {
+                    crcs[i] = entry.crc32();
+                } else if (content != null) {
+                    crcs[i] = recordCrc(entry, checksum(content));
+                } else if (!entry.isDirectory() && needsCrc(entry, sink, centralDirectoryRequested)) {
+                    try (InputStream in = minioRepository.getObject(entry.storageKey())) {
+                        crcs[i] = recordCrc(entry, checksum(in));
+                    }
+                }
+
+                sink.write(entry.localHeader(crcs[i]));
+                if (content != null) {
+                    sink.write(content);
+                } else if (!entry.isDirectory() && sink.overlaps(entry.dataOffset(), entry.dataEnd())) {
+                    copySlice(entry, sink);
+                } else {
+                    sink.skip(entry.size());
+                }
+            }
+        }
+
+        if (!centralDirectoryRequested) {
+            return;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            sink.write(entries.get(i).centralHeader(crcs[i]));
+        }
+        sink.write(archive.endRecords());
+    }
+
+    private boolean needsCrc(StoredZipArchive.Entry entry, RangeOutputStream sink, boolean centralDirectoryRequested) {
+        return entry.size() > 0 && (centralDirectoryRequested || sink.overlaps(entry.localHeaderOffset(), entry.dataOffset()));
+    }
+
+    private long recordCrc(StoredZipArchive.Entry entry, long crc) {
+        if (entry.item() instanceof IndexedItem item) {
+            resourceMetadataService.saveCrc32(item.userId(), item.objectName(), item.etag(), crc);
+        }
+        return crc;
+    }
+
+    private long checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private long checksum(InputStream in) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            crc.update(buffer, 0, read);
+        }
+        return crc.getValue();
+    }
+
+    private void copySlice(StoredZipArchive.Entry entry, RangeOutputStream sink) throws IOException {
+        long from = Math.max(sink.start, entry.dataOffset()) - entry.dataOffset();
+        long to = Math.min(sink.end, entry.dataEnd()) - entry.dataOffset();
+
+        sink.skip(from);
+        try (InputStream in = minioRepository.getObject(entry.storageKey(), from, to - from)) {
+            in.transferTo(sink);
+        }
+        sink.skip(entry.size() - to);
+    }
+
+    private boolean isIncompressible(String name, List<MediaType> incompressibleTypes) {
+        return MediaTypeFactory.getMediaType(name)
+                .map(type -> incompressibleTypes.stream().anyMatch(rule -> rule.includes(type)))
+                .orElse(false);
+    }
+
+    private final class Prefetcher implements AutoCloseable {
+
+        private final List<Item> items;
+        private final boolean[] wanted;
+        private final List<Future<byte[]>> prefetched;
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        private int submitted;
+        private int held;
+        private int acquired;
+
+        private Prefetcher(List<Item> items, boolean[] wanted) {
+            this.items = items;
+            this.wanted = wanted;
+            this.prefetched = new ArrayList<>(items.size());
+        }
+
+        private InputStream open(int index) {
+            byte[] content = buffered(index);
+            return content == null
+                    ? minioRepository.getObject(IndexedItem.getStorageKey(items.get(index)))
+                    : new ByteArrayInputStream(content);
+        }
+
+        /**
+         * Content of the object if it's small enough to be prefetched, null otherwise.
+         */
+        private byte[] buffered(int index) {
+            release(held);
+            held = 0;
+            fill(index);
+
+            Future<byte[]> content = index < prefetched.size() ? prefetched.get(index) : null;
+            if (content == null) {
+                return null;
+            }
+            held = (int) items.get(index).size();
+            return await(content);
+        }
+
+        /**
+         * Prefetches ahead of the current entry while the shared budget allows, entries the budget
+         * was exhausted for by the time they're reached are read directly instead.
+         */
+        private void fill(int current) {
+            while (submitted < current) {
+                prefetched.add(null);
+                submitted++;
+            }
+            while (submitted < items.size() && submitted <= current + archiveProperties.prefetchCount()) {
+                Item item = items.get(submitted);
+                if (!wanted[submitted] || item.size() > maxBufferedSize) {
+                    prefetched.add(null);
+                } else if (prefetchMemory.tryAcquire((int) item.size())) {
+                    acquired += (int) item.size();
+                    prefetched.add(executor.submit(MinioCallCounter.propagate(() -> readObject(IndexedItem.getStorageKey(item)))));
+                } else {
+                    break;
+                }
+                submitted++;
+            }
+        }
+
+        private byte[] readObject(String path) throws IOException {
+            try (InputStream in = minioRepository.getObject(path)) {
+                return in.readAllBytes();
+            }
+        }
+
+        private byte[] await(Future<byte[]> content) {
+            try {
+                return content.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        private void release(int permits) {
+            prefetchMemory.release(permits);
+            acquired -= permits;
+        }
+
+        /**
+         * Gives back the budget of the current entry and of everything prefetched but not consumed.
+         */
+        @Override
+        public void close() {
+            executor.shutdownNow();
+            release(acquired);
+        }
+    }
+
+    private static final class RangeOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+        private final long start;
+        private final long end;
+        private long position;
+
+        private RangeOutputStream(OutputStream delegate, long start, long end) {
+            this.delegate = delegate;
+            this.start = start;
+            this.end = end;
+        }
+
+        private boolean overlaps(long from, long to) {
+            return from < end && to > start;
+        }
+
+        private boolean isOpen() {
+            return position < end;
+        }
+
+        private void skip(long length) {
+            position += length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (position >= start && position < end) {
+                delegate.write(b);
+            }
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long from = Math.max(position, start);
+            long to = Math.min(position + len, end);
+            if (from < to) {
+                delegate.write(b, off + (int) (from - position), (int) (to - from));
+            }
+            position += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+}
@@ -22,8 +22,6 @@ import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import static utils.PathUtils.USER_ROOT_DIR_PATTERN;
-
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -57,7 +55,7 @@ public class AuthService {
         userRepository.saveAndFlush(user);
 
         commenceSecurityContextExplicitly(userRequestDto, request, response);
-        directoryService.createRootDirectory(USER_ROOT_DIR_PATTERN.formatted(user.getId()));
+        directoryService.createRootDirectory(user.getId());
 
         return UserMapper.INSTANCE.toDto(user);
     }
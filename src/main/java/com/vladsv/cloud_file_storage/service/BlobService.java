@@ -0,0 +1,164 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.DedupProperties;
+import com.vladsv.cloud_file_storage.repository.BlobRepository;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import utils.CountingInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Stores file bodies once under {@code blobs/} keyed by their SHA-256, with the {@code blobs} table
+ * counting how many resources point at each. A reference is taken before the body is checked
+ * for and written, and the sweeper holds the row lock while it removes an orphan, so a blob
+ * being re-referenced is either kept or written again, never lost. The grace period has to stay
+ * well above the MinIO stat cache ttl.
+ */
+@Service
+@RequiredArgsConstructor
+public class BlobService {
+
+    private static final String BLOBS_DIRECTORY = "blobs/";
+    private static final String STAGING_DIRECTORY = BLOBS_DIRECTORY + "staging/";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final BlobRepository blobRepository;
+    private final MinioRepository minioRepository;
+    private final DedupProperties dedupProperties;
+
+    public static String getBlobKey(String hash) {
+        return BLOBS_DIRECTORY + hash.substring(0, 2) + "/" + hash;
+    }
+
+    public boolean isEnabled() {
+        return dedupProperties.enabled();
+    }
+
+    /**
+     * The multipart body is already buffered locally, so it's hashed first and only sent to MinIO
+     * when no other resource holds the same content.
+     */
+    public StoredBlob store(MultipartFile file) {
+        MessageDigest digest = newDigest();
+        CRC32 crc = new CRC32();
+        try (InputStream stream = new CheckedInputStream(new DigestInputStream(file.getInputStream(), digest), crc)) {
+            stream.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+
+        blobRepository.acquire(hash, file.getSize());
+        try {
+            if (minioRepository.findObject(getBlobKey(hash)).isEmpty()) {
+                minioRepository.createObject(getBlobKey(hash), file);
+            }
+        } catch (RuntimeException e) {
+            blobRepository.release(hash);
+            throw e;
+        }
+        return new StoredBlob(hash, file.getSize(), crc.getValue());
+    }
+
+    /**
+     * A streamed body can't be read twice, it's written to a staging key while being hashed and
+     * then copied server-side under its hash unless that blob exists already.
+     */
+    public StoredBlob store(InputStream stream, String contentType) {
+        String stagingKey = STAGING_DIRECTORY + UUID.randomUUID();
+        MessageDigest digest = newDigest();
+        CRC32 crc = new CRC32();
+        CountingInputStream counted = new CountingInputStream(
+                new CheckedInputStream(new DigestInputStream(stream, digest), crc));
+
+        minioRepository.putObject(stagingKey, counted, contentType);
+        String hash = HexFormat.of().formatHex(digest.digest());
+
+        try {
+            blobRepository.acquire(hash, counted.getCount());
+            try {
+                if (minioRepository.findObject(getBlobKey(hash)).isEmpty()) {
+                    minioRepository.copyObject(stagingKey, getBlobKey(hash));
+                }
+            } catch (RuntimeException e) {
+                blobRepository.release(hash);
+                throw e;
+            }
+        } finally {
+            minioRepository.removeObject(stagingKey);
+        }
+        return new StoredBlob(hash, counted.getCount(), crc.getValue());
+    }
+
+    public boolean exists(String hash, long size) {
+        return blobRepository.findById(hash)
+                .filter(blob -> blob.getSize() == size)
+                .isPresent();
+    }
+
+    /**
+     * References a blob whose content the caller has proven to hold by other means, no body is sent.
+     */
+    public void acquire(String hash, long size) {
+        blobRepository.acquire(hash, size);
+    }
+
+    public void release(String hash) {
+        blobRepository.release(hash);
+    }
+
+    @Transactional
+    public void releasePaths(Long userId, Collection<String> relativePaths) {
+        blobRepository.releasePaths(userId, relativePaths);
+    }
+
+    @Transactional
+    public void releaseTree(Long userId, String relativeDirectory) {
+        blobRepository.releaseTree(userId, relativeDirectory);
+    }
+
+    /**
+     * Removes one batch of blobs that lost their last reference more than the grace period ago,
+     * returns how many were removed.
+     */
+    @Transactional
+    public int sweep() {
+        Instant before = Instant.now().minus(dedupProperties.gracePeriod());
+        List<String> orphans = blobRepository.lockOrphans(before, dedupProperties.sweepBatchSize());
+        if (orphans.isEmpty()) {
+            return 0;
+        }
+
+        minioRepository.removeObjects(orphans.stream().map(BlobService::getBlobKey).toList());
+        blobRepository.deleteAllByIdInBatch(orphans);
+        return orphans.size();
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record StoredBlob(String hash, long size, long crc32) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.DedupProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects blobs nothing points at anymore, batch by batch so each transaction holds few locks.
+ * Runs regardless of whether deduplication is enabled, so blobs get collected after turning it off.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlobSweeper {
+
+    private final BlobService blobService;
+    private final DedupProperties dedupProperties;
+
+    @Scheduled(fixedDelayString = "${spring.dedup.sweep_interval:10m}")
+    public void sweepOrphans() {
+        try {
+            int removed;
+            long total = 0;
+            do {
+                removed = blobService.sweep();
+                total += removed;
+            } while (removed == dedupProperties.sweepBatchSize());
+
+            if (total > 0) {
+                log.info("Removed {} orphaned blobs", total);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to sweep orphaned blobs", e);
+        }
+    }
+}
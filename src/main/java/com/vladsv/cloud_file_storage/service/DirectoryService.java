@@ -1,26 +1,20 @@
 package com.vladsv.cloud_file_storage.service;
 
+import com.vladsv.cloud_file_storage.config.properties.ListingProperties;
+import com.vladsv.cloud_file_storage.dto.ResourcePageDto;
 import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
 import com.vladsv.cloud_file_storage.exception.ResourceAlreadyExistsException;
 import com.vladsv.cloud_file_storage.exception.ResourceDoesNotExistsException;
-import com.vladsv.cloud_file_storage.mapper.MinioResourceMapper;
 import com.vladsv.cloud_file_storage.repository.MinioRepository;
-import io.minio.Result;
-import io.minio.StatObjectResponse;
-import io.minio.errors.*;
-import io.minio.messages.Item;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import utils.PathUtils;
+import utils.ResourcePath;
 
-import java.io.IOException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -29,58 +23,76 @@ public class DirectoryService {
     private static final String DIRECTORY_ALREADY_EXISTS = "Directory with name '%s' already exists";
 
     private final MinioRepository minioRepository;
+    private final ResourceService resourceService;
+    private final ResourceMetadataService resourceMetadataService;
+    private final ListingProperties listingProperties;
+    private final StorageMetrics storageMetrics;
 
-    public void createRootDirectory(String root) {
-        minioRepository.putEmptyObject(root);
+    public void createRootDirectory(Long userId) {
+        String rootDirectory = ResourcePath.userRoot(userId);
+        minioRepository.createEmptyObject(rootDirectory);
+        resourceMetadataService.saveDirectory(userId, rootDirectory);
     }
 
+    /**
+     * MinIO round trips: one conditional PUT, plus one PUT for each missing parent directory.
+     */
     @Transactional
     public ResourceResponseDto createEmptyDirectory(String path, Long userId) {
-        String rootDirectory = PathUtils.getUserRootDirectoryPattern(userId);
-        String normalized = PathUtils.normalizePath(path);
-        String relativePath = normalized.isEmpty() ? normalized : PathUtils.applyDirectorySuffix(normalized);
-        String absolutePath = rootDirectory + relativePath;
+        ResourcePath normalized = ResourcePath.parse(path);
+        String absolutePath = normalized.asDirectory().toAbsolute(userId);
 
-        if (minioRepository.isResourceExists(absolutePath)) {
+        if (resourceMetadataService.exists(userId, absolutePath)) {
             throw new ResourceAlreadyExistsException(DIRECTORY_ALREADY_EXISTS.formatted(normalized));
         }
 
-        minioRepository.putEmptyObject(absolutePath);
-        StatObjectResponse statObjectResponse = minioRepository.statObject(absolutePath);
-        return MinioResourceMapper.INSTANCE.toResourceDto(statObjectResponse, userId);
+        resourceService.createParentDirectoriesIfNeeded(ResourcePath.userRoot(userId), normalized.asDirectory().value(), userId);
+        String etag = minioRepository.createEmptyObject(absolutePath)
+                .orElseThrow(() -> new ResourceAlreadyExistsException(DIRECTORY_ALREADY_EXISTS.formatted(normalized)));
+        return resourceMetadataService.save(userId, absolutePath, 0, etag, null);
     }
 
+    /**
+     * Pages only when asked to with a limit or cursor, clients that predate paging get the whole
+     * directory as before.
+     */
     @Transactional(readOnly = true)
-    public List<ResourceResponseDto> getDirectoryContent(String path, Long userId) {
-        String rootDirectory = PathUtils.getUserRootDirectoryPattern(userId);
-        String normalized = PathUtils.normalizePath(path);
-        String relative = normalized.isEmpty() ? normalized : PathUtils.applyDirectorySuffix(normalized);
-        String absolutePath = rootDirectory + relative;
+    public ResourcePageDto getDirectoryContent(String path, String cursor, Integer limit, Long userId) {
+        ResourcePath normalized = ResourcePath.parse(path);
+        String absolutePath = normalized.asDirectory().toAbsolute(userId);
 
-        if (!minioRepository.isResourceExists(absolutePath)) {
+        if (!resourceMetadataService.exists(userId, absolutePath)) {
             throw new ResourceDoesNotExistsException(DIRECTORY_DOES_NOT_EXISTS.formatted(normalized));
         }
 
-        Iterable<Result<Item>> iterable = minioRepository.listObjects(absolutePath);
-        Stream<Item> ItemsStream = StreamSupport.stream(iterable.spliterator(), false).map(this::unwrapResult);
-        return ItemsStream
-                .filter(item -> !isFolderMetadata(item, absolutePath))
-                .map(item -> MinioResourceMapper.INSTANCE.toResourceDto(item, userId))
-                .collect(Collectors.toList());
+        ResourcePageDto page;
+        if (cursor == null && limit == null) {
+            List<ResourceResponseDto> items = new ArrayList<>();
+            resourceMetadataService.stream(userId, absolutePath, items::add);
+            page = new ResourcePageDto(items, null);
+        } else {
+            int effectiveLimit = limit == null ? listingProperties.defaultLimit() : limit;
+            page = resourceMetadataService.list(userId, absolutePath, cursor,
+                    Math.clamp(effectiveLimit, 1, listingProperties.maxLimit()));
+        }
+        storageMetrics.recordListing(page.items().size());
+        return page;
     }
 
-    private Item unwrapResult(Result<Item> itemResult) {
-        try {
-            return itemResult.get();
-        } catch (ErrorResponseException | InvalidKeyException | InvalidResponseException |
-                 IOException | NoSuchAlgorithmException | ServerException |
-                 XmlParserException | InternalException | InsufficientDataException e) {
-            throw new RuntimeException(e);
+    public void streamDirectoryContent(String path, Long userId, Consumer<ResourceResponseDto> consumer) {
+        ResourcePath normalized = ResourcePath.parse(path);
+        String absolutePath = normalized.asDirectory().toAbsolute(userId);
+
+        if (!resourceMetadataService.exists(userId, absolutePath)) {
+            throw new ResourceDoesNotExistsException(DIRECTORY_DOES_NOT_EXISTS.formatted(normalized));
         }
-    }
 
-    private boolean isFolderMetadata(Item resource, String path) {
-        return resource.objectName().equals(path);
+        AtomicInteger size = new AtomicInteger();
+        resourceMetadataService.stream(userId, absolutePath, resource -> {
+            size.incrementAndGet();
+            consumer.accept(resource);
+        });
+        storageMetrics.recordListing(size.get());
     }
 
 }
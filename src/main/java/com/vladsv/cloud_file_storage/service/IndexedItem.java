@@ -0,0 +1,72 @@
+package com.vladsv.cloud_file_storage.service;
+
+import io.minio.messages.Item;
+import utils.PathUtils;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Listing entry built from the index. It carries the logical size, which a MinIO listing doesn't
+ * have for compressed objects, for a deduplicated file the blob its content is read from, see
+ * {@link #getStorageKey(Item)}, and the CRC-32 of the content if it's known.
+ */
+final class IndexedItem extends Item {
+
+    private final Long userId;
+    private final String objectName;
+    private final long size;
+    private final String etag;
+    private final String blob;
+    private final Long crc32;
+    private final ZonedDateTime lastModified;
+
+    IndexedItem(Long userId, String objectName, long size, String etag, String blob, Long crc32,
+                ZonedDateTime lastModified) {
+        this.userId = userId;
+        this.objectName = objectName;
+        this.size = size;
+        this.etag = etag;
+        this.blob = blob;
+        this.crc32 = crc32;
+        this.lastModified = lastModified;
+    }
+
+    static String getStorageKey(Item item) {
+        return item instanceof IndexedItem indexed && indexed.blob != null
+                ? BlobService.getBlobKey(indexed.blob)
+                : item.objectName();
+    }
+
+    static Long getCrc32(Item item) {
+        return item instanceof IndexedItem indexed ? indexed.crc32 : null;
+    }
+
+    Long userId() {
+        return userId;
+    }
+
+    @Override
+    public String objectName() {
+        return objectName;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public String etag() {
+        return etag;
+    }
+
+    @Override
+    public ZonedDateTime lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean isDir() {
+        return PathUtils.isDir(objectName);
+    }
+}
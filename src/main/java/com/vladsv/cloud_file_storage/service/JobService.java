@@ -0,0 +1,303 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.JobProperties;
+import com.vladsv.cloud_file_storage.dto.JobDto;
+import com.vladsv.cloud_file_storage.entity.Job;
+import com.vladsv.cloud_file_storage.exception.InvalidResourcePathException;
+import com.vladsv.cloud_file_storage.exception.ResourceDoesNotExistsException;
+import com.vladsv.cloud_file_storage.exception.TooManyJobsException;
+import com.vladsv.cloud_file_storage.repository.JobRepository;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import io.minio.Result;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class JobService {
+
+    private static final String JOB_DOES_NOT_EXIST = "Job '%s' doesn't exist";
+    private static final String JOB_HAS_NO_ARCHIVE = "Job '%s' has no archive to download";
+    private static final String TOO_MANY_JOBS = "Too many background jobs are queued, try again later";
+    private static final String JOB_INTERRUPTED = "Job was interrupted";
+    private static final String ARCHIVES_DIRECTORY = "jobs/";
+    private static final String ARCHIVE_PATH = ARCHIVES_DIRECTORY + "%s/%s.zip";
+    private static final String ARCHIVE_CONTENT_TYPE = "application/zip";
+    private static final int PIPE_BUFFER_SIZE = 1024 * 1024;
+    private static final int REMOVE_BATCH_SIZE = 1000;
+
+    private final ResourceService resourceService;
+    private final MinioRepository minioRepository;
+    private final JobRepository jobRepository;
+    private final JobProperties jobProperties;
+    private final ThreadPoolExecutor executor;
+
+    public JobService(ResourceService resourceService,
+                      MinioRepository minioRepository,
+                      JobRepository jobRepository,
+                      JobProperties jobProperties) {
+        this.resourceService = resourceService;
+        this.minioRepository = minioRepository;
+        this.jobRepository = jobRepository;
+        this.jobProperties = jobProperties;
+        // Kept private rather than exposed as an Executor bean: a bean would replace the
+        // auto-configured applicationTaskExecutor used by MVC async requests.
+        this.executor = new ThreadPoolExecutor(
+                jobProperties.poolSize(), jobProperties.poolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobProperties.queueCapacity()),
+                Thread.ofPlatform().name("job-", 0).factory());
+    }
+
+    public JobDto submitDelete(String path, Long userId) {
+        resourceService.getResource(path, userId);
+
+        return submit(Job.Type.DELETE, path, null, userId,
+                (job, listener) -> resourceService.deleteResource(job.source(), job.userId(), listener));
+    }
+
+    public JobDto submitMove(String source, String target, Long userId) {
+        resourceService.getResource(source, userId);
+
+        return submit(Job.Type.MOVE, source, target, userId,
+                (job, listener) -> resourceService.moveOrRenameResource(job.source(), job.target(), job.userId(), listener));
+    }
+
+    public JobDto submitZip(String path, Long userId) {
+        if (!path.isEmpty() && !path.endsWith("/")) {
+            throw new InvalidResourcePathException("Only directories can be archived");
+        }
+        resourceService.getResource(path, userId);
+
+        return submit(Job.Type.ZIP, path, null, userId, this::archiveToStorage);
+    }
+
+    public JobDto getJob(String id, Long userId) {
+        return toDto(findJob(id, userId));
+    }
+
+    public JobDto cancelJob(String id, Long userId) {
+        Job job = findJob(id, userId);
+        if (!job.status().isFinished()) {
+            jobRepository.requestCancel(id);
+        }
+
+        return toDto(job);
+    }
+
+    public void downloadArchive(String id, Long userId, HttpServletResponse response) {
+        Job job = findJob(id, userId);
+        if (job.type() != Job.Type.ZIP || job.status() != Job.Status.COMPLETED) {
+            throw new ResourceDoesNotExistsException(JOB_HAS_NO_ARCHIVE.formatted(id));
+        }
+
+        String archivePath = ARCHIVE_PATH.formatted(userId, id);
+        StatObjectResponse stat = minioRepository.statObject(archivePath);
+
+        response.setContentType(ARCHIVE_CONTENT_TYPE);
+        response.setContentLengthLong(stat.size());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(getArchiveName(job.source()), StandardCharsets.UTF_8)
+                .build()
+                .toString());
+
+        try (InputStream inputStream = minioRepository.getObject(archivePath)) {
+            StreamUtils.copy(inputStream, response.getOutputStream());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spring.jobs.cleanup_interval:1h}")
+    public void removeExpiredArchives() {
+        ZonedDateTime expiredBefore = ZonedDateTime.now().minus(jobProperties.ttl());
+        List<String> expired = new ArrayList<>();
+
+        try {
+            for (Result<Item> result : minioRepository.listObjects(ARCHIVES_DIRECTORY, true)) {
+                Item item = result.get();
+                if (item.lastModified().isBefore(expiredBefore)) {
+                    expired.add(item.objectName());
+                }
+                if (expired.size() == REMOVE_BATCH_SIZE) {
+                    minioRepository.removeObjects(expired);
+                    expired.clear();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to list job archives for cleanup", e);
+        }
+
+        if (!expired.isEmpty()) {
+            minioRepository.removeObjects(expired);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private JobDto submit(Job.Type type, String source, String target, Long userId, JobTask task) {
+        Job job = Job.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .type(type)
+                .status(Job.Status.QUEUED)
+                .source(source)
+                .target(target)
+                .build();
+        jobRepository.save(job);
+
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobRepository.delete(job.id());
+            throw new TooManyJobsException(TOO_MANY_JOBS);
+        }
+
+        return toDto(job);
+    }
+
+    private void run(Job job, JobTask task) {
+        if (jobRepository.isCancelRequested(job.id())) {
+            jobRepository.updateStatus(job.id(), Job.Status.CANCELLED, null);
+            return;
+        }
+
+        jobRepository.updateStatus(job.id(), Job.Status.RUNNING, null);
+        RedisProgressListener listener = new RedisProgressListener(job.id());
+
+        try {
+            task.run(job, listener);
+            listener.flush();
+            jobRepository.updateStatus(job.id(), Job.Status.COMPLETED, null);
+        } catch (CancellationException e) {
+            listener.flush();
+            jobRepository.updateStatus(job.id(), Job.Status.CANCELLED, null);
+        } catch (RuntimeException e) {
+            log.warn("Job {} ({}) failed", job.id(), job.type(), e);
+            listener.flush();
+            jobRepository.updateStatus(job.id(), Job.Status.FAILED, e.getMessage());
+        }
+    }
+
+    private void archiveToStorage(Job job, ProgressListener listener) {
+        String archivePath = ARCHIVE_PATH.formatted(job.userId(), job.id());
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        try (PipedInputStream inputStream = new PipedInputStream(PIPE_BUFFER_SIZE)) {
+            PipedOutputStream outputStream = new PipedOutputStream(inputStream);
+            Thread writer = Thread.ofVirtual().start(() -> {
+                try (outputStream) {
+                    resourceService.archiveDirectory(job.source(), job.userId(), outputStream, listener);
+                } catch (RuntimeException e) {
+                    failure.set(e);
+                } catch (IOException e) {
+                    failure.set(new UncheckedIOException(e));
+                }
+            });
+
+            minioRepository.putObject(archivePath, inputStream, ARCHIVE_CONTENT_TYPE);
+            writer.join();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(JOB_INTERRUPTED, e);
+        }
+
+        if (failure.get() != null) {
+            minioRepository.removeObject(archivePath);
+            throw failure.get();
+        }
+    }
+
+    private Job findJob(String id, Long userId) {
+        return jobRepository.findById(id)
+                .filter(job -> job.userId().equals(userId))
+                .orElseThrow(() -> new ResourceDoesNotExistsException(JOB_DOES_NOT_EXIST.formatted(id)));
+    }
+
+    private String getArchiveName(String source) {
+        String trimmed = source.endsWith("/") ? source.substring(0, source.length() - 1) : source;
+        String name = trimmed.substring(trimmed.lastIndexOf('/') + 1);
+
+        return (name.isEmpty() ? "files" : name) + ".zip";
+    }
+
+    private JobDto toDto(Job job) {
+        return new JobDto(job.id(), job.type().name(), job.status().name(),
+                job.objectsProcessed(), job.bytesProcessed(), job.error());
+    }
+
+    @FunctionalInterface
+    private interface JobTask {
+        void run(Job job, ProgressListener listener);
+    }
+
+    /**
+     * Buffers progress locally and talks to Redis at most once per {@code progressInterval},
+     * so batch-heavy jobs don't turn every processed object into a round trip.
+     */
+    private class RedisProgressListener implements ProgressListener {
+
+        private final String jobId;
+        private final long intervalNanos = jobProperties.progressInterval().toNanos();
+
+        private long pendingObjects;
+        private long pendingBytes;
+        private long lastFlush = System.nanoTime();
+        private long lastCancelCheck = System.nanoTime();
+        private boolean cancelled;
+
+        private RedisProgressListener(String jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public synchronized void onProgress(long objects, long bytes) {
+            pendingObjects += objects;
+            pendingBytes += bytes;
+            if (System.nanoTime() - lastFlush >= intervalNanos) {
+                flush();
+            }
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            if (!cancelled && System.nanoTime() - lastCancelCheck >= intervalNanos) {
+                cancelled = jobRepository.isCancelRequested(jobId);
+                lastCancelCheck = System.nanoTime();
+            }
+
+            return cancelled;
+        }
+
+        private synchronized void flush() {
+            if (pendingObjects != 0 || pendingBytes != 0) {
+                jobRepository.incrementProgress(jobId, pendingObjects, pendingBytes);
+                pendingObjects = 0;
+                pendingBytes = 0;
+            }
+            lastFlush = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.MoveProperties;
+import com.vladsv.cloud_file_storage.exception.ResourceMoveException;
+import com.vladsv.cloud_file_storage.repository.MinioCallCounter;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import io.minio.Result;
+import io.minio.errors.*;
+import io.minio.messages.Item;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MoveService {
+
+    private static final String MOVE_FAILED = "Failed to move '%s' to '%s', changes have been rolled back";
+
+    private final MinioRepository minioRepository;
+    private final MoveProperties moveProperties;
+
+    public void moveDirectory(String source, String target) {
+        moveDirectory(source, target, ProgressListener.NONE);
+    }
+
+    public void moveDirectory(String source, String target, ProgressListener listener) {
+        Semaphore permits = new Semaphore(moveProperties.parallelism());
+        List<String> moved = new ArrayList<>();
+        List<String> batch = new ArrayList<>(moveProperties.batchSize());
+        long batchBytes = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Result<Item> result : minioRepository.listObjects(source, true)) {
+                Item item = unwrapResult(result);
+                batch.add(item.objectName());
+                batchBytes += item.size();
+                if (batch.size() == moveProperties.batchSize()) {
+                    moveBatch(batch, source, target, moved, executor, permits, listener);
+                    listener.onProgress(batch.size(), batchBytes);
+                    batch = new ArrayList<>(moveProperties.batchSize());
+                    batchBytes = 0;
+                }
+            }
+            if (!batch.isEmpty()) {
+                moveBatch(batch, source, target, moved, executor, permits, listener);
+                listener.onProgress(batch.size(), batchBytes);
+            }
+        }
+    }
+
+    private void moveBatch(List<String> batch, String source, String target, List<String> moved,
+                           ExecutorService executor, Semaphore permits, ProgressListener listener) {
+        if (listener.isCancelled()) {
+            rollback(List.of(), moved, source, target, executor, permits);
+            throw new CancellationException();
+        }
+
+        List<Callable<String>> copies = batch.stream()
+                .<Callable<String>>map(key -> MinioCallCounter.propagate(() -> copyWithRetry(key, relocate(key, source, target), permits)))
+                .toList();
+
+        List<String> copied = new ArrayList<>(batch.size());
+        Throwable failure = null;
+        for (Future<String> copy : invokeAll(executor, copies)) {
+            if (copy.state() == Future.State.SUCCESS) {
+                copied.add(copy.resultNow());
+            } else {
+                failure = copy.exceptionNow();
+            }
+        }
+
+        if (failure != null) {
+            rollback(copied, moved, source, target, executor, permits);
+            throw new ResourceMoveException(MOVE_FAILED.formatted(source, target), failure);
+        }
+
+        minioRepository.removeObjects(batch);
+        moved.addAll(batch);
+    }
+
+    private void rollback(List<String> copied, List<String> moved, String source, String target,
+                          ExecutorService executor, Semaphore permits) {
+        List<Callable<String>> restores = moved.stream()
+                .<Callable<String>>map(key -> MinioCallCounter.propagate(() -> copyWithRetry(relocate(key, source, target), key, permits)))
+                .toList();
+
+        List<String> targets = new ArrayList<>(copied.size() + moved.size());
+        copied.forEach(key -> targets.add(relocate(key, source, target)));
+        for (Future<String> restore : invokeAll(executor, restores)) {
+            if (restore.state() == Future.State.SUCCESS) {
+                targets.add(restore.resultNow());
+            } else {
+                log.error("Failed to restore object during move rollback", restore.exceptionNow());
+            }
+        }
+        for (int i = 0; i < targets.size(); i += moveProperties.batchSize()) {
+            minioRepository.removeObjects(targets.subList(i, Math.min(targets.size(), i + moveProperties.batchSize())));
+        }
+    }
+
+    private String copyWithRetry(String source, String target, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        try {
+            RuntimeException lastFailure = null;
+            for (int attempt = 0; attempt < moveProperties.maxAttempts(); attempt++) {
+                try {
+                    minioRepository.copyObject(source, target);
+                    return source;
+                } catch (RuntimeException e) {
+                    lastFailure = e;
+                }
+            }
+            throw lastFailure;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private List<Future<String>> invokeAll(ExecutorService executor, List<Callable<String>> tasks) {
+        try {
+            return executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String relocate(String key, String source, String target) {
+        return target + key.substring(source.length());
+    }
+
+    private Item unwrapResult(Result<Item> itemResult) {
+        try {
+            return itemResult.get();
+        } catch (ErrorResponseException | InvalidKeyException | InvalidResponseException |
+                 IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException | InternalException | InsufficientDataException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.vladsv.cloud_file_storage.service;
+
+public interface ProgressListener {
+
+    ProgressListener NONE = new ProgressListener() {
+        @Override
+        public void onProgress(long objects, long bytes) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    void onProgress(long objects, long bytes);
+
+    boolean isCancelled();
+}
@@ -0,0 +1,30 @@
+package com.vladsv.cloud_file_storage.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the resource index for users registered before it existed, one transaction per user.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResourceIndexInitializer {
+
+    private final ResourceMetadataService resourceMetadataService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexExistingUsers() {
+        for (Long userId : resourceMetadataService.findUsersWithoutIndex()) {
+            try {
+                resourceMetadataService.reindex(userId);
+                log.info("Built resource index for user {}", userId);
+            } catch (RuntimeException e) {
+                log.error("Failed to build resource index for user {}", userId, e);
+            }
+        }
+    }
+}
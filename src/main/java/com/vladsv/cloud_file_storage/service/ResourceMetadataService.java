@@ -0,0 +1,423 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.dto.ResourcePageDto;
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.entity.ResourceMetadata;
+import com.vladsv.cloud_file_storage.mapper.ResourceMetadataMapper;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import com.vladsv.cloud_file_storage.repository.ResourceMetadataRepository;
+import io.minio.Result;
+import io.minio.StatObjectResponse;
+import io.minio.errors.*;
+import io.minio.messages.Item;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import utils.CursorUtils;
+import utils.PathUtils;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static utils.PathUtils.isDir;
+
+/**
+ * Mirrors the object tree of every user in the {@code resources} table, so browsing, existence
+ * checks and search never hit MinIO. Paths are stored relative to the user root directory,
+ * the root itself is the row with an empty path.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResourceMetadataService {
+
+    private static final int SAVE_BATCH_SIZE = 1000;
+    private static final int STREAM_PAGE_SIZE = 500;
+
+    private final ResourceMetadataRepository resourceMetadataRepository;
+    private final MinioRepository minioRepository;
+    private final ResourceSearchIndex resourceSearchIndex;
+    private final StorageUsageService storageUsageService;
+    private final BlobService blobService;
+    private final EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public boolean exists(Long userId, String absolutePath) {
+        return resourceMetadataRepository.existsByUserIdAndPath(userId, toRelative(userId, absolutePath));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ResourceResponseDto> find(Long userId, String absolutePath) {
+        return resourceMetadataRepository.findByUserIdAndPath(userId, toRelative(userId, absolutePath))
+                .map(ResourceMetadataMapper.INSTANCE::toResourceDto);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<String> findBlob(Long userId, String absolutePath) {
+        return resourceMetadataRepository.findBlobByUserIdAndPath(userId, toRelative(userId, absolutePath));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<String> findEtag(Long userId, String absolutePath) {
+        return resourceMetadataRepository.findEtagByUserIdAndPath(userId, toRelative(userId, absolutePath));
+    }
+
+    @Transactional(readOnly = true)
+    public boolean referencesBlob(Long userId, String hash) {
+        return resourceMetadataRepository.existsByUserIdAndBlob(userId, hash);
+    }
+
+    /**
+     * Indexed files and directories under a directory, the directory itself excluded, with logical
+     * sizes of files. A MinIO listing of it misses deduplicated files and reports compressed objects
+     * by their stored size.
+     */
+    @Transactional(readOnly = true)
+    List<Item> findIndexedItems(Long userId, String absoluteDirectory) {
+        String rootDirectory = PathUtils.getUserRootDirectoryPattern(userId);
+        String relativeDirectory = toRelative(userId, absoluteDirectory);
+        return resourceMetadataRepository.findAllByUserIdAndPathStartingWithAndPathNot(
+                        userId, relativeDirectory, relativeDirectory).stream()
+                .<Item>map(resource -> new IndexedItem(userId,
+                        rootDirectory + resource.getPath(),
+                        resource.getSize() == null ? 0 : resource.getSize(),
+                        resource.getEtag(),
+                        resource.getBlob(),
+                        resource.getCrc32(),
+                        resource.getLastModified() == null ? null : resource.getLastModified().atZone(ZoneOffset.UTC)))
+                .toList();
+    }
+
+    /**
+     * Keyset page of a directory ordered by path, the cursor is the last path of the previous page.
+     */
+    @Transactional(readOnly = true)
+    public ResourcePageDto list(Long userId, String absoluteDirectory, String cursor, int limit) {
+        String afterPath = cursor == null ? "" : CursorUtils.decode(cursor);
+        List<ResourceMetadata> resources = findPage(userId, toRelative(userId, absoluteDirectory), afterPath, limit + 1);
+
+        List<ResourceMetadata> page = resources.subList(0, Math.min(limit, resources.size()));
+        String nextCursor = resources.size() > limit ? CursorUtils.encode(page.getLast().getPath()) : null;
+
+        return new ResourcePageDto(page.stream().map(ResourceMetadataMapper.INSTANCE::toResourceDto).toList(), nextCursor);
+    }
+
+    /**
+     * Streams a directory in keyset pages. Unless the caller has a transaction open, every page is
+     * read in a short transaction of its own and handed over once it has ended, so a slow consumer
+     * doesn't hold a connection. Rows are detached so the persistence context doesn't grow with the
+     * directory.
+     */
+    public void stream(Long userId, String absoluteDirectory, Consumer<ResourceResponseDto> consumer) {
+        String relativeDirectory = toRelative(userId, absoluteDirectory);
+        String afterPath = "";
+        List<ResourceMetadata> page;
+        do {
+            page = findPage(userId, relativeDirectory, afterPath, STREAM_PAGE_SIZE);
+            page.forEach(entityManager::detach);
+            page.forEach(resource -> consumer.accept(ResourceMetadataMapper.INSTANCE.toResourceDto(resource)));
+            if (!page.isEmpty()) {
+                afterPath = page.getLast().getPath();
+            }
+        } while (page.size() == STREAM_PAGE_SIZE);
+    }
+
+    private List<ResourceMetadata> findPage(Long userId, String relativeDirectory, String afterPath, int limit) {
+        return resourceMetadataRepository.findAllByUserIdAndParentAndPathGreaterThanOrderByPathAsc(
+                userId, relativeDirectory, afterPath, Limit.of(limit));
+    }
+
+    public List<ResourceResponseDto> searchAll(Long userId, String query) {
+        return resourceSearchIndex.search(userId, query, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Search results are ranked rather than ordered by a key, so the cursor is an offset into them.
+     */
+    public ResourcePageDto search(Long userId, String query, String cursor, int limit) {
+        int offset = cursor == null ? 0 : CursorUtils.decodeOffset(cursor);
+        List<ResourceResponseDto> resources = resourceSearchIndex.search(userId, query, offset, limit + 1);
+
+        List<ResourceResponseDto> page = resources.subList(0, Math.min(limit, resources.size()));
+        String nextCursor = resources.size() > limit ? CursorUtils.encode(Integer.toString(offset + limit)) : null;
+
+        return new ResourcePageDto(page, nextCursor);
+    }
+
+    @Transactional
+    public ResourceResponseDto save(Long userId, StatObjectResponse stat) {
+        String relativePath = toRelative(userId, stat.object());
+        ResourceMetadata resource = resourceMetadataRepository.findByUserIdAndPath(userId, relativePath)
+                .orElseGet(() -> newResource(userId, relativePath));
+
+        if (!isDir(stat.object())) {
+            recordUsage(userId, resource, stat.size());
+            resource.setSize(stat.size());
+            resource.setEtag(stat.etag());
+            resource.setCrc32(null);
+        }
+        resource.setLastModified(stat.lastModified().toInstant());
+
+        ResourceMetadata saved = resourceMetadataRepository.save(resource);
+        afterCommit(() -> resourceSearchIndex.onSaved(userId, saved));
+        return ResourceMetadataMapper.INSTANCE.toResourceDto(saved);
+    }
+
+    /**
+     * Indexes an object from what its write returned, saving a HEAD afterwards. The CRC-32 of the
+     * content is kept for stored archives, null if the upload path didn't see the bytes.
+     */
+    @Transactional
+    public ResourceResponseDto save(Long userId, String absolutePath, long size, String etag, Long crc32) {
+        return save(userId, absolutePath, size, etag, null, crc32);
+    }
+
+    /**
+     * Same as above, for a file whose content is the given blob rather than an object of its own.
+     */
+    @Transactional
+    public ResourceResponseDto save(Long userId, String absolutePath, long size, String etag, String blob,
+                                    Long crc32) {
+        String relativePath = toRelative(userId, absolutePath);
+        ResourceMetadata resource = resourceMetadataRepository.findByUserIdAndPath(userId, relativePath)
+                .orElseGet(() -> newResource(userId, relativePath));
+
+        if (!isDir(absolutePath)) {
+            recordUsage(userId, resource, size);
+            resource.setSize(size);
+            resource.setEtag(etag);
+            resource.setBlob(blob);
+            resource.setCrc32(crc32);
+        }
+        resource.setLastModified(Instant.now());
+
+        ResourceMetadata saved = resourceMetadataRepository.save(resource);
+        afterCommit(() -> resourceSearchIndex.onSaved(userId, saved));
+        return ResourceMetadataMapper.INSTANCE.toResourceDto(saved);
+    }
+
+    /**
+     * Records a CRC-32 computed after the fact, unless the file has been replaced meanwhile.
+     */
+    @Transactional
+    public void saveCrc32(Long userId, String absolutePath, String etag, long crc32) {
+        resourceMetadataRepository.updateCrc32(userId, toRelative(userId, absolutePath), etag, crc32);
+    }
+
+    @Transactional
+    public void saveDirectory(Long userId, String absolutePath) {
+        String relativePath = toRelative(userId, absolutePath);
+        if (!resourceMetadataRepository.existsByUserIdAndPath(userId, relativePath)) {
+            ResourceMetadata saved = resourceMetadataRepository.save(newResource(userId, relativePath));
+            afterCommit(() -> resourceSearchIndex.onSaved(userId, saved));
+        }
+    }
+
+    /**
+     * Returns which of the given paths are indexed, in one query.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findExisting(Long userId, Collection<String> absolutePaths) {
+        String rootDirectory = PathUtils.getUserRootDirectoryPattern(userId);
+        List<String> relativePaths = absolutePaths.stream()
+                .map(path -> toRelative(userId, path))
+                .toList();
+
+        Set<String> existing = new HashSet<>();
+        resourceMetadataRepository.findExistingPaths(userId, relativePaths)
+                .forEach(path -> existing.add(rootDirectory + path));
+        return existing;
+    }
+
+    @Transactional
+    public void saveDirectories(Long userId, Collection<String> absolutePaths) {
+        Set<String> existing = findExisting(userId, absolutePaths);
+        List<ResourceMetadata> created = resourceMetadataRepository.saveAll(absolutePaths.stream()
+                .filter(path -> !existing.contains(path))
+                .map(path -> newResource(userId, toRelative(userId, path)))
+                .toList());
+        afterCommit(() -> created.forEach(resource -> resourceSearchIndex.onSaved(userId, resource)));
+    }
+
+    @Transactional
+    public void remove(Long userId, Collection<String> absolutePaths) {
+        List<String> relativePaths = absolutePaths.stream()
+                .map(path -> toRelative(userId, path))
+                .toList();
+        ResourceMetadataRepository.FileTotals removed = resourceMetadataRepository.sumFiles(userId, relativePaths);
+        blobService.releasePaths(userId, relativePaths);
+        resourceMetadataRepository.deleteAllByUserIdAndPathIn(userId, relativePaths);
+        storageUsageService.record(userId, -removed.getBytes(), -removed.getObjects());
+        afterCommit(() -> resourceSearchIndex.onRemoved(userId, relativePaths));
+    }
+
+    @Transactional
+    public void removeTree(Long userId, String absoluteDirectory) {
+        String relativeDirectory = toRelative(userId, absoluteDirectory);
+        ResourceMetadataRepository.FileTotals removed = resourceMetadataRepository.sumTree(userId, relativeDirectory);
+        blobService.releaseTree(userId, relativeDirectory);
+        resourceMetadataRepository.deleteTree(userId, relativeDirectory);
+        storageUsageService.record(userId, -removed.getBytes(), -removed.getObjects());
+        afterCommit(() -> resourceSearchIndex.onTreeRemoved(userId, relativeDirectory));
+    }
+
+    @Transactional
+    public void move(Long userId, String absoluteSource, String absoluteTarget) {
+        String source = toRelative(userId, absoluteSource);
+        String target = toRelative(userId, absoluteTarget);
+
+        if (isDir(source)) {
+            resourceMetadataRepository.moveDirectory(userId, source, target,
+                    getParent(target), PathUtils.getResourceNameFromPath(target));
+            afterCommit(() -> resourceSearchIndex.invalidate(userId));
+            return;
+        }
+
+        resourceMetadataRepository.findByUserIdAndPath(userId, source).ifPresent(resource -> {
+            resource.setPath(target);
+            resource.setParent(getParent(target));
+            resource.setName(PathUtils.getResourceNameFromPath(target));
+            ResourceMetadata saved = resourceMetadataRepository.save(resource);
+            afterCommit(() -> {
+                resourceSearchIndex.onRemoved(userId, List.of(source));
+                resourceSearchIndex.onSaved(userId, saved);
+            });
+        });
+    }
+
+    /**
+     * Rebuilds the index of a user from a recursive MinIO listing. Directories that only exist
+     * implicitly, as a common prefix without a marker object, are indexed as well. Deduplicated
+     * files have no object of their own, their rows are the only record of them and are kept.
+     * A listing reports compressed objects by their stored size, so every file is stat'ed for
+     * its logical one.
+     */
+    @Transactional
+    public void reindex(Long userId) {
+        String rootDirectory = PathUtils.getUserRootDirectoryPattern(userId);
+        resourceMetadataRepository.deleteAllStoredByUserId(userId);
+        resourceMetadataRepository.flush();
+
+        Set<String> directories = new HashSet<>();
+        List<ResourceMetadata> batch = new ArrayList<>(SAVE_BATCH_SIZE);
+        batch.add(newResource(userId, ""));
+        directories.add("");
+
+        for (String blobPath : resourceMetadataRepository.findBlobPaths(userId)) {
+            for (String parent = getParent(blobPath); parent != null && directories.add(parent);
+                 parent = getParent(parent)) {
+                batch.add(newResource(userId, parent));
+            }
+        }
+
+        for (Result<Item> result : minioRepository.listObjects(rootDirectory, true)) {
+            Item item = unwrapResult(result);
+            String relativePath = toRelative(userId, item.objectName());
+            if (relativePath.isEmpty()) {
+                continue;
+            }
+
+            for (String parent = getParent(relativePath); parent != null && directories.add(parent);
+                 parent = getParent(parent)) {
+                batch.add(newResource(userId, parent));
+            }
+
+            if (isDir(relativePath)) {
+                if (directories.add(relativePath)) {
+                    batch.add(newResource(userId, relativePath));
+                }
+            } else {
+                ResourceMetadata resource = newResource(userId, relativePath);
+                resource.setSize(minioRepository.statObject(item.objectName()).size());
+                resource.setEtag(stripQuotes(item.etag()));
+                resource.setLastModified(item.lastModified() == null ? null : item.lastModified().toInstant());
+                batch.add(resource);
+            }
+
+            if (batch.size() >= SAVE_BATCH_SIZE) {
+                resourceMetadataRepository.saveAll(batch);
+                batch = new ArrayList<>(SAVE_BATCH_SIZE);
+            }
+        }
+        resourceMetadataRepository.saveAll(batch);
+        resourceMetadataRepository.flush();
+        storageUsageService.reconcile(userId);
+        afterCommit(() -> resourceSearchIndex.invalidate(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findUsersWithoutIndex() {
+        return resourceMetadataRepository.findUserIdsWithoutIndex();
+    }
+
+    /**
+     * The search index lives outside the transaction, updating it before the commit would expose
+     * rows that may still be rolled back.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void recordUsage(Long userId, ResourceMetadata resource, long size) {
+        long previousSize = resource.getSize() == null ? 0 : resource.getSize();
+        storageUsageService.record(userId, size - previousSize, resource.getId() == null ? 1 : 0);
+    }
+
+    private ResourceMetadata newResource(Long userId, String relativePath) {
+        return ResourceMetadata.builder()
+                .userId(userId)
+                .path(relativePath)
+                .parent(getParent(relativePath))
+                .name(relativePath.isEmpty() ? "" : PathUtils.getResourceNameFromPath(relativePath))
+                .type(relativePath.isEmpty() || isDir(relativePath)
+                        ? ResourceMetadata.Type.DIRECTORY
+                        : ResourceMetadata.Type.FILE)
+                .lastModified(Instant.now())
+                .build();
+    }
+
+    private String getParent(String relativePath) {
+        if (relativePath.isEmpty()) {
+            return null;
+        }
+
+        String trimmed = isDir(relativePath) ? relativePath.substring(0, relativePath.length() - 1) : relativePath;
+        return trimmed.substring(0, trimmed.lastIndexOf('/') + 1);
+    }
+
+    private String toRelative(Long userId, String absolutePath) {
+        return absolutePath.substring(PathUtils.getUserRootDirectoryPattern(userId).length());
+    }
+
+    private String stripQuotes(String etag) {
+        return etag == null ? null : etag.replace("\"", "");
+    }
+
+    private Item unwrapResult(Result<Item> itemResult) {
+        try {
+            return itemResult.get();
+        } catch (ErrorResponseException | InvalidKeyException | InvalidResponseException |
+                 IOException | NoSuchAlgorithmException | ServerException |
+                 XmlParserException | InternalException | InsufficientDataException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
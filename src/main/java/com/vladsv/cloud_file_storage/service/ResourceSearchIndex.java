@@ -0,0 +1,261 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.SearchProperties;
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.entity.ResourceMetadata;
+import com.vladsv.cloud_file_storage.mapper.ResourceMetadataMapper;
+import com.vladsv.cloud_file_storage.repository.ResourceMetadataRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process trigram index of resource names, one per user. An index is loaded from the
+ * {@code resources} table on the first search, kept up to date by {@link ResourceMetadataService}
+ * and dropped once the user stops searching. Indexes are also reloaded after {@code maxAge},
+ * which bounds how stale they get when another node writes to the same account.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResourceSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final ResourceMetadataRepository resourceMetadataRepository;
+    private final SearchProperties searchProperties;
+
+    private final Map<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+
+    public List<ResourceResponseDto> search(Long userId, String query, int offset, int limit) {
+        return getIndex(userId).search(query.toLowerCase(Locale.ROOT), offset, limit);
+    }
+
+    public void onSaved(Long userId, ResourceMetadata resource) {
+        UserIndex index = indexes.get(userId);
+        if (index != null && !resource.getPath().isEmpty()) {
+            index.add(resource);
+        }
+    }
+
+    public void onRemoved(Long userId, Collection<String> paths) {
+        UserIndex index = indexes.get(userId);
+        if (index != null) {
+            paths.forEach(index::remove);
+        }
+    }
+
+    public void onTreeRemoved(Long userId, String directory) {
+        UserIndex index = indexes.get(userId);
+        if (index != null) {
+            index.removeTree(directory);
+        }
+    }
+
+    public void invalidate(Long userId) {
+        indexes.remove(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${spring.search.eviction_interval:1m}")
+    public void evictIdleIndexes() {
+        long idleTimeout = searchProperties.idleTimeout().toNanos();
+        long now = System.nanoTime();
+        indexes.values().removeIf(index -> now - index.lastAccess > idleTimeout);
+    }
+
+    /**
+     * A new index is registered before it's loaded, so saves and removals committed meanwhile are
+     * applied to it instead of being lost. Searches of the same user wait for the load.
+     */
+    private UserIndex getIndex(Long userId) {
+        long now = System.nanoTime();
+        long maxAge = searchProperties.maxAge().toNanos();
+        UserIndex index = indexes.compute(userId, (id, current) ->
+                current != null && now - current.loadedAt <= maxAge ? current : new UserIndex(now));
+
+        if (index.claimLoad()) {
+            try {
+                index.load(resourceMetadataRepository.findAllByUserIdAndPathNot(userId, ""));
+            } catch (RuntimeException e) {
+                indexes.remove(userId, index);
+                index.failLoad(e);
+                throw e;
+            }
+        }
+        index.awaitLoad();
+        index.lastAccess = now;
+        return index;
+    }
+
+    private static Set<String> toGrams(String key) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            grams.add(key.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private record Entry(String path, String key, ResourceResponseDto resource) {
+
+        /**
+         * Lower is better: exact name, then prefix, then a match starting at a word boundary,
+         * then any other substring.
+         */
+        int score(String query) {
+            if (key.equals(query)) {
+                return 0;
+            }
+            if (key.startsWith(query)) {
+                return 1;
+            }
+            int index = key.indexOf(query);
+            return Character.isLetterOrDigit(key.charAt(index - 1)) ? 3 : 2;
+        }
+    }
+
+    private record Match(Entry entry, int score) {
+    }
+
+    private static final class UserIndex {
+
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final Map<String, Set<String>> postings = new HashMap<>();
+        private final AtomicBoolean loadClaimed = new AtomicBoolean();
+        private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        /**
+         * Paths and directories changed while the index loads. The load may have read them before
+         * the change committed, so its rows don't override them. Both are dropped once loaded.
+         */
+        private Set<String> touchedPaths = new HashSet<>();
+        private List<String> touchedTrees = new ArrayList<>();
+
+        private UserIndex(long loadedAt) {
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+
+        boolean claimLoad() {
+            return loadClaimed.compareAndSet(false, true);
+        }
+
+        synchronized void load(List<ResourceMetadata> resources) {
+            for (ResourceMetadata resource : resources) {
+                if (!isTouched(resource.getPath())) {
+                    put(resource);
+                }
+            }
+            touchedPaths = null;
+            touchedTrees = null;
+            loaded.complete(null);
+        }
+
+        void failLoad(RuntimeException e) {
+            loaded.completeExceptionally(e);
+        }
+
+        void awaitLoad() {
+            loaded.join();
+        }
+
+        synchronized void add(ResourceMetadata resource) {
+            touch(resource.getPath());
+            put(resource);
+        }
+
+        synchronized void remove(String path) {
+            touch(path);
+            delete(path);
+        }
+
+        synchronized void removeTree(String directory) {
+            if (touchedTrees != null) {
+                touchedTrees.add(directory);
+            }
+            List<String> paths = entries.keySet().stream()
+                    .filter(path -> path.startsWith(directory))
+                    .toList();
+            paths.forEach(this::delete);
+        }
+
+        private void touch(String path) {
+            if (touchedPaths != null) {
+                touchedPaths.add(path);
+            }
+        }
+
+        private boolean isTouched(String path) {
+            return touchedPaths.contains(path) || touchedTrees.stream().anyMatch(path::startsWith);
+        }
+
+        private void put(ResourceMetadata resource) {
+            delete(resource.getPath());
+
+            String name = resource.getName();
+            String key = (name.endsWith("/") ? name.substring(0, name.length() - 1) : name).toLowerCase(Locale.ROOT);
+            Entry entry = new Entry(resource.getPath(), key, ResourceMetadataMapper.INSTANCE.toResourceDto(resource));
+
+            entries.put(entry.path(), entry);
+            for (String gram : toGrams(key)) {
+                postings.computeIfAbsent(gram, ignored -> new HashSet<>()).add(entry.path());
+            }
+        }
+
+        private void delete(String path) {
+            Entry entry = entries.remove(path);
+            if (entry == null) {
+                return;
+            }
+
+            for (String gram : toGrams(entry.key())) {
+                Set<String> paths = postings.get(gram);
+                paths.remove(path);
+                if (paths.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        synchronized List<ResourceResponseDto> search(String query, int offset, int limit) {
+            return getCandidates(query).stream()
+                    .map(entries::get)
+                    .filter(entry -> entry.key().contains(query))
+                    .map(entry -> new Match(entry, entry.score(query)))
+                    .sorted(Comparator.comparingInt(Match::score)
+                            .thenComparingInt(match -> match.entry().key().length())
+                            .thenComparing(match -> match.entry().path()))
+                    .skip(offset)
+                    .limit(limit)
+                    .map(match -> match.entry().resource())
+                    .toList();
+        }
+
+        private Collection<String> getCandidates(String query) {
+            if (query.length() < GRAM_LENGTH) {
+                return entries.keySet();
+            }
+
+            List<Set<String>> lists = new ArrayList<>();
+            for (String gram : toGrams(query)) {
+                Set<String> paths = postings.get(gram);
+                if (paths == null) {
+                    return List.of();
+                }
+                lists.add(paths);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            Set<String> smallest = lists.getFirst();
+            List<Set<String>> rest = lists.subList(1, lists.size());
+            return smallest.stream()
+                    .filter(path -> rest.stream().allMatch(paths -> paths.contains(path)))
+                    .toList();
+        }
+    }
+}
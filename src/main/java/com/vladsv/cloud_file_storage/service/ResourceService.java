@@ -1,36 +1,75 @@
 package com.vladsv.cloud_file_storage.service;
 
+import com.vladsv.cloud_file_storage.config.properties.PresignedProperties;
+import com.vladsv.cloud_file_storage.config.properties.SearchProperties;
+import com.vladsv.cloud_file_storage.config.properties.UploadProperties;
+import com.vladsv.cloud_file_storage.dto.PresignedUrlDto;
+import com.vladsv.cloud_file_storage.dto.ResourcePageDto;
 import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.dto.UploadResultDto;
 import com.vladsv.cloud_file_storage.exception.InvalidResourcePathException;
 import com.vladsv.cloud_file_storage.exception.InvalidResourceUploadBodyException;
+import com.vladsv.cloud_file_storage.exception.QuotaExceededException;
 import com.vladsv.cloud_file_storage.exception.ResourceAlreadyExistsException;
 import com.vladsv.cloud_file_storage.exception.ResourceDoesNotExistsException;
-import com.vladsv.cloud_file_storage.mapper.MinioResourceMapper;
+import com.vladsv.cloud_file_storage.exception.StorageUnavailableException;
+import com.vladsv.cloud_file_storage.repository.MinioCallCounter;
 import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import com.vladsv.cloud_file_storage.repository.PresignedUrlRepository;
 import io.minio.Result;
+import io.minio.StatObjectResponse;
 import io.minio.errors.*;
 import io.minio.messages.Item;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
-import utils.PathUtils;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import utils.LimitedInputStream;
+import utils.ResourcePath;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import static utils.PathUtils.isDir;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ResourceService {
@@ -38,187 +77,555 @@ public class ResourceService {
     private static final String RESOURCE_DOES_NOT_EXISTS = "Resource under path '%s' doesn't exist";
     private static final String RESOURCE_ALREADY_EXISTS = "Resource '%s' already in destination folder";
     private static final String INVALID_SOURCE_OR_TARGET_PATH = "Either source or target path is invalid or missing";
+    private static final String MOVE_INTO_ITSELF = "Folder '%s' cannot be moved into itself";
     private static final String ROOT_DIRECTORY_REMOVAL_ATTEMPT = "You cannot delete root folder;)";
     private static final String NO_FILES_PROVIDED_FOR_UPLOAD = "No files provided for upload";
+    private static final String UPLOAD_FAILED = "Failed to upload '%s'";
+    private static final String NOT_A_MULTIPART_REQUEST = "Upload body must be multipart/form-data";
+    private static final String UPLOAD_PART_NAME = "object";
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final String DIRECTORY_URL_REQUESTED = "Direct links are available for files only";
+    private static final String NEGATIVE_UPLOAD_SIZE = "Upload size must not be negative";
+    private static final String UPLOADED_OBJECT_MISSING = "Nothing has been uploaded to '%s' yet";
+    private static final String DIRECTORY_THUMBNAIL_REQUESTED = "Thumbnails are available for files only";
+    private static final String DOWNLOAD_ENDPOINT = "/api/resource/download";
 
     private final MinioRepository minioRepository;
-
+    private final ArchiveService archiveService;
+    private final MoveService moveService;
+    private final ResourceMetadataService resourceMetadataService;
+    private final StorageUsageService storageUsageService;
+    private final BlobService blobService;
+    private final ThumbnailService thumbnailService;
+    private final StorageMetrics storageMetrics;
+    private final PresignedUrlRepository presignedUrlRepository;
+    private final UploadProperties uploadProperties;
+    private final PresignedProperties presignedProperties;
+    private final SearchProperties searchProperties;
+
+    /**
+     * MinIO round trips: none.
+     */
     public ResourceResponseDto getResource(String path, Long id) {
-        String rootDirectory = PathUtils.getUserRootDirectoryPattern(id);
-        String relativePath = PathUtils.normalizePath(path);
-        String absolutePath = rootDirectory + relativePath;
-
-        if (!minioRepository.isResourceExists(absolutePath)) {
-            throw new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(relativePath));
-        }
+        ResourcePath relativePath = ResourcePath.parse(path);
+        String absolutePath = relativePath.toAbsolute(id);
 
-        return MinioResourceMapper.INSTANCE.toResourceDto(minioRepository.statObject(absolutePath), id);
+        return resourceMetadataService.find(id, absolutePath)
+                .orElseThrow(() -> new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(relativePath)));
     }
 
     public void deleteResource(String path, Long id) {
-        String rootDirectory = PathUtils.getUserRootDirectoryPattern(id);
-        String relativePath = PathUtils.normalizePath(path);
-        String absolutePath = rootDirectory + relativePath;
+        deleteResource(path, id, ProgressListener.NONE);
+    }
+
+    public void deleteResource(String path, Long id, ProgressListener listener) {
+        ResourcePath relativePath = ResourcePath.parse(path);
+        String absolutePath = relativePath.toAbsolute(id);
 
-        if (absolutePath.equals(rootDirectory)) {
+        if (relativePath.isRoot()) {
             throw new InvalidResourcePathException(ROOT_DIRECTORY_REMOVAL_ATTEMPT);
         }
 
-        if (!minioRepository.isResourceExists(absolutePath)) {
+        if (!resourceMetadataService.exists(id, absolutePath)) {
             throw new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(relativePath));
         }
 
-        if (isDir(path)) {
-            minioRepository.removeObjects(getDirectoryContent(absolutePath, true));
+        if (relativePath.isDir()) {
+            deleteDirectory(absolutePath, id, listener);
+            resourceMetadataService.removeTree(id, absolutePath);
+            thumbnailService.removeTree(absolutePath);
         } else {
-            minioRepository.removeObject(absolutePath);
+            if (resourceMetadataService.findBlob(id, absolutePath).isEmpty()) {
+                minioRepository.removeObject(absolutePath);
+            }
+            resourceMetadataService.remove(id, List.of(absolutePath));
+            thumbnailService.remove(absolutePath);
+            listener.onProgress(1, 0);
         }
     }
 
-    public void downloadResource(String path, Long id, HttpServletResponse response) {
-        String rootDirectory = PathUtils.getUserRootDirectoryPattern(id);
-        String relativePath = PathUtils.normalizePath(path);
-        String absolutePath = rootDirectory + relativePath;
+    public void downloadResource(String path, Long id, HttpServletRequest request, HttpServletResponse response) {
+        ResourcePath relativePath = ResourcePath.parse(path);
+        String absolutePath = relativePath.toAbsolute(id);
 
-        if (!minioRepository.isResourceExists(absolutePath)) {
+        if (!resourceMetadataService.exists(id, absolutePath)) {
             throw new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(relativePath));
         }
 
-        if (!isDir(relativePath)) {
-            downloadSingleFile(absolutePath, response);
+        if (relativePath.isDir()) {
+            downloadDirectoryAsZip(absolutePath, id, request, response);
+            return;
+        }
+
+        String storageKey = getStorageKey(absolutePath, id);
+        if (presignedProperties.enabled() && !minioRepository.isCompressed(storageKey)) {
+            redirectToPresignedUrl(absolutePath, storageKey, response);
         } else {
-            downloadDirectoryAsZip(absolutePath, response);
+            downloadSingleFile(absolutePath, storageKey, request, response);
+        }
+    }
+
+    public void downloadThumbnail(String path, String version, Long id,
+                                  HttpServletRequest request, HttpServletResponse response) {
+        ResourcePath relativePath = ResourcePath.parse(path);
+        String absolutePath = relativePath.toAbsolute(id);
+
+        if (relativePath.isDir()) {
+            throw new InvalidResourcePathException(DIRECTORY_THUMBNAIL_REQUESTED);
+        }
+
+        String etag = resourceMetadataService.findEtag(id, absolutePath)
+                .orElseThrow(() -> new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(relativePath)));
+        thumbnailService.writeThumbnail(absolutePath, getStorageKey(absolutePath, id), etag, version, request, response);
+    }
+
+    public void archiveDirectory(String path, Long id, OutputStream outputStream, ProgressListener listener) {
+        ResourcePath relativePath = ResourcePath.parse(path).asDirectory();
+        String absolutePath = relativePath.toAbsolute(id);
+
+        if (!resourceMetadataService.exists(id, absolutePath)) {
+            throw new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(relativePath));
         }
 
-        response.setContentType("application/octet-stream");
-        response.setHeader("Content-Disposition", "attachment; filename=\"" + relativePath + "\"");
+        List<Item> items = getArchiveItems(absolutePath, id);
+        try {
+            archiveService.writeZip(absolutePath, items, outputStream, listener);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public PresignedUrlDto getDownloadUrl(String path, Long id) {
+        ResourcePath relativePath = ResourcePath.parse(path);
+        String absolutePath = relativePath.toAbsolute(id);
+
+        if (relativePath.isDir()) {
+            throw new InvalidResourcePathException(DIRECTORY_URL_REQUESTED);
+        }
+
+        if (!resourceMetadataService.exists(id, absolutePath)) {
+            throw new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(relativePath));
+        }
+
+        String storageKey = getStorageKey(absolutePath, id);
+        if (minioRepository.isCompressed(storageKey)) {
+            String url = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path(DOWNLOAD_ENDPOINT)
+                    .queryParam("path", relativePath.value())
+                    .encode()
+                    .toUriString();
+            return new PresignedUrlDto(url, "GET", presignedUrlRepository.getExpirySeconds(), null);
+        }
+
+        String url = presignedUrlRepository.getDownloadUrl(storageKey,
+                toAttachmentHeader(ResourcePath.of(absolutePath).name()));
+        return new PresignedUrlDto(url, "GET", presignedUrlRepository.getExpirySeconds(), null);
+    }
+
+    public PresignedUrlDto getUploadUrl(String path, String name, long size, Long id) {
+        ResourcePath relativePath = ResourcePath.parse(path).asDirectory();
+        String relativeFilePath = ResourcePath.normalize(name);
+        String absolutePath = relativePath.toAbsolute(id);
+
+        if (relativeFilePath.isEmpty() || isDir(relativeFilePath)) {
+            throw new InvalidResourcePathException(DIRECTORY_URL_REQUESTED);
+        }
+
+        if (size < 0) {
+            throw new InvalidResourceUploadBodyException(NEGATIVE_UPLOAD_SIZE);
+        }
+
+        if (resourceMetadataService.exists(id, absolutePath + relativeFilePath)) {
+            throw new ResourceAlreadyExistsException(RESOURCE_ALREADY_EXISTS.formatted(relativeFilePath));
+        }
+        storageUsageService.checkQuota(id, size);
+        createParentDirectoriesIfNeeded(absolutePath, relativeFilePath, id);
+
+        return new PresignedUrlDto(presignedUrlRepository.getUploadUrl(), "POST",
+                presignedUrlRepository.getExpirySeconds(),
+                presignedUrlRepository.getUploadFormData(absolutePath + relativeFilePath, size));
+    }
+
+    /**
+     * Indexes a file uploaded through a presigned link and charges it to the user's usage. The
+     * link's policy already pins the size, the quota is checked again as the usage may have grown
+     * since the link was issued, and the object is removed if it no longer fits.
+     */
+    public ResourceResponseDto confirmUpload(String path, String name, Long id) {
+        ResourcePath relativePath = ResourcePath.parse(path).asDirectory();
+        String relativeFilePath = ResourcePath.normalize(name);
+        String absolutePath = relativePath.toAbsolute(id);
+        String absoluteFilePath = absolutePath + relativeFilePath;
+
+        if (relativeFilePath.isEmpty() || isDir(relativeFilePath)) {
+            throw new InvalidResourcePathException(DIRECTORY_URL_REQUESTED);
+        }
+
+        if (resourceMetadataService.exists(id, absoluteFilePath)) {
+            throw new ResourceAlreadyExistsException(RESOURCE_ALREADY_EXISTS.formatted(relativeFilePath));
+        }
+
+        minioRepository.evictStat(absoluteFilePath);
+        StatObjectResponse stat = minioRepository.findObject(absoluteFilePath)
+                .orElseThrow(() -> new ResourceDoesNotExistsException(UPLOADED_OBJECT_MISSING.formatted(relativeFilePath)));
+
+        return indexWithinQuota(id, stat.size(), () -> minioRepository.removeObject(absoluteFilePath), () -> {
+            createParentDirectoriesIfNeeded(absolutePath, relativeFilePath, id);
+            ResourceResponseDto resource = resourceMetadataService.save(id, stat);
+            thumbnailService.schedule(absoluteFilePath, absoluteFilePath, stat.etag());
+            return resource;
+        });
     }
 
     public ResourceResponseDto moveOrRenameResource(String source, String target, long userId) {
-        source = PathUtils.normalizePath(source);
-        target = PathUtils.normalizePath(target);
+        return moveOrRenameResource(source, target, userId, ProgressListener.NONE);
+    }
+
+    public ResourceResponseDto moveOrRenameResource(String source, String target, long userId,
+                                                    ProgressListener listener) {
+        ResourcePath sourcePath = ResourcePath.parse(source);
+        ResourcePath targetPath = ResourcePath.parse(target);
 
-        if (source.equals(target)) {
+        if (sourcePath.equals(targetPath)) {
             throw new InvalidResourcePathException(INVALID_SOURCE_OR_TARGET_PATH);
         }
 
-        boolean sourceIsDir = isDir(source);
-        boolean targetIsDir = isDir(target);
-        if (sourceIsDir != targetIsDir) {
+        if (sourcePath.isDir() != targetPath.isDir()) {
             throw new InvalidResourcePathException(INVALID_SOURCE_OR_TARGET_PATH);
         }
 
-        String rootDirectory = PathUtils.getUserRootDirectoryPattern(userId);
-        String absoluteSource = PathUtils.normalizePath(rootDirectory + source);
-        String absoluteTarget = PathUtils.normalizePath(rootDirectory + target);
+        String absoluteSource = sourcePath.toAbsolute(userId);
+        String absoluteTarget = targetPath.toAbsolute(userId);
+
+        if (sourcePath.isDir() && absoluteTarget.startsWith(absoluteSource)) {
+            throw new InvalidResourcePathException(MOVE_INTO_ITSELF.formatted(sourcePath));
+        }
 
-        if (!minioRepository.isResourceExists(absoluteSource)) {
-            throw new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(source));
+        if (!resourceMetadataService.exists(userId, absoluteSource)) {
+            throw new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(sourcePath));
         }
 
-        if (minioRepository.isResourceExists(absoluteTarget)) {
-            throw new ResourceAlreadyExistsException(RESOURCE_ALREADY_EXISTS.formatted(target));
+        if (resourceMetadataService.exists(userId, absoluteTarget)) {
+            throw new ResourceAlreadyExistsException(RESOURCE_ALREADY_EXISTS.formatted(targetPath));
         }
 
         if (isSimpleRename(absoluteSource, absoluteTarget)) {
-            return renameResource(absoluteSource, absoluteTarget, userId);
+            return renameResource(absoluteSource, absoluteTarget, userId, listener);
         }
-        return moveResource(absoluteSource, absoluteTarget, userId);
+        return moveResource(absoluteSource, absoluteTarget, userId, listener);
     }
 
-    public List<ResourceResponseDto> search(String query, Long userId) {
-        String rootDirectory = PathUtils.getUserRootDirectoryPattern(userId);
+    public ResourcePageDto search(String query, String cursor, Integer limit, Long userId) {
+        if (cursor == null && limit == null) {
+            return new ResourcePageDto(resourceMetadataService.searchAll(userId, query), null);
+        }
 
-        Iterable<Result<Item>> iterable = minioRepository.listObjects(rootDirectory, true);
-        Stream<Item> ItemsStream = StreamSupport.stream(iterable.spliterator(), false).map(this::unwrapResult);
+        int effectiveLimit = limit == null ? searchProperties.defaultLimit() : limit;
+        return resourceMetadataService.search(userId, query, cursor,
+                Math.clamp(effectiveLimit, 1, searchProperties.maxLimit()));
+    }
 
-        return ItemsStream
-                .filter(item -> PathUtils.getResourceNameFromPath(item.objectName()).contains(query))
-                .map(item -> MinioResourceMapper.INSTANCE.toResourceDto(item, userId))
-                .toList();
+    public void streamSearch(String query, Long userId, Consumer<ResourceResponseDto> consumer) {
+        resourceMetadataService.searchAll(userId, query).forEach(consumer);
     }
 
-    public List<ResourceResponseDto> uploadResources(String path, List<MultipartFile> files, Long id) {
+    public List<UploadResultDto> uploadResources(String path, List<MultipartFile> files, Long id) {
         if (files == null || files.isEmpty()) {
             throw new InvalidResourceUploadBodyException(NO_FILES_PROVIDED_FOR_UPLOAD);
         }
+        long size = files.stream().mapToLong(MultipartFile::getSize).sum();
+        storageUsageService.reserve(id, size);
+        try {
+            return uploadReserved(path, files, id);
+        } finally {
+            storageUsageService.release(id, size);
+        }
+    }
 
-        String rootDirectory = PathUtils.getUserRootDirectoryPattern(id);
-        String relativePath = PathUtils.normalizePath(path);
-        String absolutePath = rootDirectory + relativePath;
-
-        return files.stream()
-                .map(file -> uploadSingleFile(absolutePath, file, id))
+    /**
+     * Uploads a batch whose size is already reserved. Files that fail leave nothing behind and
+     * the stored ones are recorded before the reservation of the whole batch is released.
+     */
+    private List<UploadResultDto> uploadReserved(String path, List<MultipartFile> files, Long id) {
+        ResourcePath relativePath = ResourcePath.parse(path);
+        String absolutePath = relativePath.toAbsolute(id);
+
+        Set<String> directories = new TreeSet<>();
+        files.forEach(file -> directories.addAll(getParentDirectories(absolutePath, file.getOriginalFilename())));
+        createDirectories(directories, id);
+
+        Semaphore permits = new Semaphore(uploadProperties.maxConcurrentFiles());
+        List<Callable<UploadResultDto>> uploads = files.stream()
+                .<Callable<UploadResultDto>>map(file -> MinioCallCounter.propagate(() -> uploadWithPermit(absolutePath, file, id, permits)))
                 .toList();
 
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return executor.invokeAll(uploads).stream()
+                    .map(Future::resultNow)
+                    .toList();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
     }
 
-    private void downloadSingleFile(String path, HttpServletResponse response) {
-        try (InputStream stream = minioRepository.getObject(path)) {
-            StreamUtils.copy(stream, response.getOutputStream());
+    public List<ResourceResponseDto> streamResources(String path, HttpServletRequest request, Long id) {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new InvalidResourceUploadBodyException(NOT_A_MULTIPART_REQUEST);
+        }
+
+        ResourcePath relativePath = ResourcePath.parse(path);
+        String absolutePath = relativePath.toAbsolute(id);
+
+        List<ResourceResponseDto> uploaded = new ArrayList<>();
+        Set<String> knownDirectories = new HashSet<>();
+        try {
+            JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+            FileItemInputIterator iterator = upload.getItemIterator(request);
+            while (iterator.hasNext()) {
+                FileItemInput item = iterator.next();
+                if (item.isFormField() || !UPLOAD_PART_NAME.equals(item.getFieldName())) {
+                    continue;
+                }
+                uploaded.add(streamSingleFile(absolutePath, item, knownDirectories, id));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (uploaded.isEmpty()) {
+            throw new InvalidResourceUploadBodyException(NO_FILES_PROVIDED_FOR_UPLOAD);
+        }
+        return uploaded;
+    }
+
+    private void redirectToPresignedUrl(String path, String storageKey, HttpServletResponse response) {
+        String url = presignedUrlRepository.getDownloadUrl(
+                storageKey, toAttachmentHeader(ResourcePath.of(path).name()));
+        try {
+            response.sendRedirect(url);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void downloadDirectoryAsZip(String path, HttpServletResponse response) {
-        try (ZipOutputStream zipOutputStream = new ZipOutputStream(response.getOutputStream())) {
-            List<String> resources = getDirectoryContent(path, true);
+    private void downloadSingleFile(String path, String storageKey,
+                                    HttpServletRequest request, HttpServletResponse response) {
+        StatObjectResponse stat = minioRepository.statObject(storageKey);
+        String etag = "\"" + stat.etag() + "\"";
+        long lastModified = stat.lastModified().toInstant().toEpochMilli();
+        long size = stat.size();
 
-            for (String resource : resources) {
-                if (resource.equals(path)) {
-                    continue;
-                }
-                addFileToZip(path, resource, zipOutputStream);
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setContentType(stat.contentType() == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : stat.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, toAttachmentHeader(ResourcePath.of(path).name()));
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        writeRangedBody(request, response, etag, lastModified, size, (offset, length) ->
+                writeObject(length == size
+                        ? minioRepository.getObject(storageKey)
+                        : minioRepository.getObject(storageKey, offset, length), response));
+    }
+
+    private void writeRangedBody(HttpServletRequest request, HttpServletResponse response,
+                                 String etag, long lastModified, long size, RangeWriter writer) {
+        try {
+            HttpRange range = resolveRange(request, etag, lastModified, size);
+            if (range == null) {
+                response.setContentLengthLong(size);
+                writer.write(0, size);
+                return;
+            }
+
+            long start = getRangeStart(range, size);
+            long end = getRangeEnd(range, size);
+            if (start < 0 || start >= size || end < start) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
             }
+
+            long length = end - start + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes %d-%d/%d".formatted(start, end, size));
+            response.setContentLengthLong(length);
+            writer.write(start, length);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void addFileToZip(String path, String resource, ZipOutputStream zipOutputStream) throws IOException {
-        try (InputStream in = minioRepository.getObject(resource)) {
-            String substring = resource.substring(path.length());
-            ZipEntry zipEntry = new ZipEntry(substring);
-            zipOutputStream.putNextEntry(zipEntry);
-            in.transferTo(zipOutputStream);
-            zipOutputStream.closeEntry();
+    private HttpRange resolveRange(HttpServletRequest request, String etag, long lastModified, long size) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || size == 0 || !isIfRangeSatisfied(request, etag, lastModified)) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private long getRangeStart(HttpRange range, long size) {
+        try {
+            return range.getRangeStart(size);
+        } catch (IllegalArgumentException e) {
+            return -1;
         }
     }
 
+    private long getRangeEnd(HttpRange range, long size) {
+        try {
+            return range.getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * If-Range needs a strong match, so a weak entity tag never satisfies it, and neither does a
+     * date when the body has no last modification time.
+     */
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        if (lastModified < 0) {
+            return false;
+        }
+
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void writeObject(InputStream object, HttpServletResponse response) {
+        try (InputStream stream = object) {
+            StreamUtils.copy(stream, response.getOutputStream());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String toAttachmentHeader(String filename) {
+        return ContentDisposition.attachment()
+                .filename(filename, StandardCharsets.UTF_8)
+                .build()
+                .toString();
+    }
+
+    private void downloadDirectoryAsZip(String path, Long id, HttpServletRequest request, HttpServletResponse response) {
+        List<Item> items = getArchiveItems(path, id);
+
+        if (archiveService.isStoredMode()) {
+            downloadDirectoryAsStoredZip(path, items, request, response);
+            return;
+        }
+
+        setZipHeaders(path, response);
+        try {
+            archiveService.writeZip(path, items, response.getOutputStream());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void downloadDirectoryAsStoredZip(String path, List<Item> items,
+                                              HttpServletRequest request, HttpServletResponse response) {
+        StoredZipArchive archive = StoredZipArchive.of(path, items);
+        if (new ServletWebRequest(request, response).checkNotModified(archive.etag())) {
+            return;
+        }
+
+        setZipHeaders(path, response);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        writeRangedBody(request, response, archive.etag(), -1, archive.length(), (offset, length) ->
+                archiveService.writeStoredZip(archive, offset, length, response.getOutputStream()));
+    }
+
+    private void setZipHeaders(String path, HttpServletResponse response) {
+        String directoryName = ResourcePath.of(path).name();
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                toAttachmentHeader(directoryName.substring(0, directoryName.length() - 1) + ".zip"));
+    }
+
+    private void deleteDirectory(String path, Long id, ProgressListener listener) {
+        List<String> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+        long batchBytes = 0;
+        for (Result<Item> result : minioRepository.listObjects(path, true)) {
+            Item item = unwrapResult(result);
+            batch.add(item.objectName());
+            batchBytes += item.size();
+            if (batch.size() == DELETE_BATCH_SIZE) {
+                removeBatch(batch, batchBytes, id, listener);
+                batch = new ArrayList<>(DELETE_BATCH_SIZE);
+                batchBytes = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            removeBatch(batch, batchBytes, id, listener);
+        }
+    }
+
+    private void removeBatch(List<String> batch, long batchBytes, Long id, ProgressListener listener) {
+        if (listener.isCancelled()) {
+            throw new CancellationException();
+        }
+        minioRepository.removeObjects(batch);
+        resourceMetadataService.remove(id, batch);
+        listener.onProgress(batch.size(), batchBytes);
+    }
+
     private boolean isSimpleRename(String source, String target) {
-        return PathUtils.getPathToResource(source).equals(PathUtils.getPathToResource(target));
+        return ResourcePath.of(source).parent().equals(ResourcePath.of(target).parent());
     }
 
-    private ResourceResponseDto renameResource(String source, String target, long userId) {
+    private ResourceResponseDto renameResource(String source, String target, long userId, ProgressListener listener) {
         if (!isSimpleRename(source, target)) {
             throw new InvalidResourcePathException(INVALID_SOURCE_OR_TARGET_PATH);
         }
-        return performMoveOperation(source, target, userId);
+        return performMoveOperation(source, target, userId, listener);
     }
 
-    private ResourceResponseDto moveResource(String source, String target, long userId) {
-        return performMoveOperation(source, target, userId);
+    private ResourceResponseDto moveResource(String source, String target, long userId, ProgressListener listener) {
+        return performMoveOperation(source, target, userId, listener);
     }
 
-    private ResourceResponseDto performMoveOperation(String source, String target, long userId) {
+    private ResourceResponseDto performMoveOperation(String source, String target, long userId,
+                                                     ProgressListener listener) {
         if (isDir(source)) {
-            moveDirectoryContents(source, target);
+            moveService.moveDirectory(source, target, listener);
         } else {
-            moveSingleFile(source, target);
+            if (resourceMetadataService.findBlob(userId, source).isEmpty()) {
+                moveSingleFile(source, target);
+            }
+            listener.onProgress(1, 0);
+        }
+        resourceMetadataService.move(userId, source, target);
+        if (isDir(source)) {
+            thumbnailService.removeTree(source);
+        } else {
+            thumbnailService.remove(source);
         }
-        return MinioResourceMapper.INSTANCE.toResourceDto(minioRepository.statObject(target), userId);
-    }
-
-    private void moveDirectoryContents(String source, String target) {
-        List<String> resources = getDirectoryContent(source);
-
-        resources.forEach(resource -> {
-            String relativePath = resource.substring(source.length());
-            minioRepository.copyObject(resource, target + relativePath);
-        });
 
-        minioRepository.removeObjects(resources);
+        return resourceMetadataService.find(userId, target)
+                .orElseThrow(() -> new ResourceDoesNotExistsException(RESOURCE_DOES_NOT_EXISTS.formatted(target)));
     }
 
     private void moveSingleFile(String source, String target) {
@@ -226,47 +633,209 @@ public class ResourceService {
         minioRepository.removeObject(source);
     }
 
+    private UploadResultDto uploadWithPermit(String path, MultipartFile file, Long id, Semaphore permits)
+            throws InterruptedException {
+        permits.acquire();
+        try {
+            return UploadResultDto.uploaded(file.getOriginalFilename(), uploadSingleFile(path, file, id));
+        } catch (ResourceAlreadyExistsException e) {
+            return UploadResultDto.failed(file.getOriginalFilename(), e.getMessage(), HttpStatus.CONFLICT);
+        } catch (InvalidResourcePathException | InvalidResourceUploadBodyException e) {
+            return UploadResultDto.failed(file.getOriginalFilename(), e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (QuotaExceededException e) {
+            return UploadResultDto.failed(file.getOriginalFilename(), e.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
+        } catch (StorageUnavailableException e) {
+            return UploadResultDto.failed(file.getOriginalFilename(), e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (RuntimeException e) {
+            log.error("Failed to upload {}", file.getOriginalFilename(), e);
+            return UploadResultDto.failed(file.getOriginalFilename(), UPLOAD_FAILED.formatted(file.getOriginalFilename()),
+                    HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * MinIO round trips: one conditional PUT, parent directories are created upfront for the whole batch.
+     * With deduplication, a HEAD of the blob and a PUT only if its content is new.
+     */
     private ResourceResponseDto uploadSingleFile(String path, MultipartFile file, Long id) {
         String absolute = path + file.getOriginalFilename();
-        if (minioRepository.isResourceExists(absolute)) {
+        if (resourceMetadataService.exists(id, absolute)) {
             throw new InvalidResourcePathException(
                     RESOURCE_ALREADY_EXISTS.formatted(file.getOriginalFilename()));
         }
-        createParentDirectoriesIfNeeded(path, file.getOriginalFilename());
 
-        minioRepository.putObject(absolute, file);
-        return MinioResourceMapper.INSTANCE.toResourceDto(minioRepository.statObject(absolute), id);
+        if (blobService.isEnabled()) {
+            return saveBlobResource(absolute, file.getOriginalFilename(), blobService.store(file), id);
+        }
+
+        CRC32 crc = new CRC32();
+        String etag;
+        try (InputStream stream = new CheckedInputStream(file.getInputStream(), crc)) {
+            etag = minioRepository.createObject(absolute, stream, file.getSize(), file.getContentType())
+                    .orElseThrow(() -> new InvalidResourcePathException(
+                            RESOURCE_ALREADY_EXISTS.formatted(file.getOriginalFilename())));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        ResourceResponseDto resource = resourceMetadataService.save(id, absolute, file.getSize(), etag, crc.getValue());
+        thumbnailService.schedule(absolute, absolute, etag);
+        return resource;
     }
 
-    private void createParentDirectoriesIfNeeded(String path, String relativeFilePath) {
-        String pathToFile = PathUtils.getPathToResource(relativeFilePath);
+    private ResourceResponseDto streamSingleFile(String path, FileItemInput item, Set<String> knownDirectories,
+                                                 Long id) throws IOException {
+        String absolute = path + item.getName();
+        if (resourceMetadataService.exists(id, absolute)) {
+            throw new InvalidResourcePathException(RESOURCE_ALREADY_EXISTS.formatted(item.getName()));
+        }
+        List<String> directories = getParentDirectories(path, item.getName()).stream()
+                .filter(knownDirectories::add)
+                .toList();
+        createDirectories(directories, id);
+
+        LimitedInputStream stream = new LimitedInputStream(item.getInputStream(),
+                storageUsageService.getRemainingQuota(id));
+        CRC32 crc = new CRC32();
+        try (stream) {
+            if (blobService.isEnabled()) {
+                BlobService.StoredBlob blob = blobService.store(stream, item.getContentType());
+                return indexWithinQuota(id, blob.size(), () -> blobService.release(blob.hash()),
+                        () -> saveBlobResource(absolute, item.getName(), blob, id));
+            }
 
-        if (!pathToFile.contains("/") || pathToFile.startsWith("/")) {
-            return;
+            String etag = minioRepository.createObject(absolute, new CheckedInputStream(stream, crc), item.getContentType())
+                    .orElseThrow(() -> new InvalidResourcePathException(RESOURCE_ALREADY_EXISTS.formatted(item.getName())));
+            return indexWithinQuota(id, stream.getCount(), () -> minioRepository.removeObject(absolute), () -> {
+                ResourceResponseDto resource = resourceMetadataService.save(id, absolute, stream.getCount(), etag,
+                        crc.getValue());
+                thumbnailService.schedule(absolute, absolute, etag);
+                return resource;
+            });
+        } catch (IOException | RuntimeException e) {
+            if (stream.isExceeded()) {
+                storageUsageService.checkQuota(id, stream.getCount());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Points the path at a stored blob. The reference taken while storing is given back if the
+     * path got taken meanwhile, as the conditional PUT would have failed without deduplication.
+     */
+    private ResourceResponseDto saveBlobResource(String absolute, String name, BlobService.StoredBlob blob, Long id) {
+        ResourceResponseDto resource;
+        try {
+            resource = resourceMetadataService.save(id, absolute, blob.size(), blob.hash(), blob.hash(), blob.crc32());
+        } catch (DataIntegrityViolationException e) {
+            blobService.release(blob.hash());
+            throw new InvalidResourcePathException(RESOURCE_ALREADY_EXISTS.formatted(name));
+        } catch (RuntimeException e) {
+            blobService.release(blob.hash());
+            throw e;
+        }
+        thumbnailService.schedule(absolute, BlobService.getBlobKey(blob.hash()), blob.hash());
+        return resource;
+    }
+
+    /**
+     * Reserves the size of an object whose length was only known once it was stored, and indexes it
+     * while the reservation is held. The object is discarded if it doesn't fit into the quota.
+     */
+    ResourceResponseDto indexWithinQuota(Long id, long size, Runnable discard, Supplier<ResourceResponseDto> index) {
+        try {
+            storageUsageService.reserve(id, size);
+        } catch (QuotaExceededException e) {
+            discard.run();
+            throw e;
         }
 
-        Arrays.stream(pathToFile.split("/"))
-                .reduce(path, (accumulatedPath, directory) -> {
-                    String currentPath = accumulatedPath + directory + "/";
-                    createDirectoryIfNotExists(currentPath);
-                    return currentPath;
-                });
+        try {
+            return index.get();
+        } finally {
+            storageUsageService.release(id, size);
+        }
+    }
+
+    void createParentDirectoriesIfNeeded(String path, String relativeFilePath, Long id) {
+        createDirectories(getParentDirectories(path, relativeFilePath), id);
     }
 
-    private void createDirectoryIfNotExists(String path) {
-        if (!minioRepository.isResourceExists(path)) {
-            minioRepository.putEmptyObject(path);
+    private List<String> getParentDirectories(String path, String relativeFilePath) {
+        String pathToFile = ResourcePath.of(relativeFilePath).parent();
+
+        if (pathToFile.startsWith("/")) {
+            return List.of();
+        }
+
+        List<String> directories = new ArrayList<>();
+        for (int slash = pathToFile.indexOf('/'); slash >= 0; slash = pathToFile.indexOf('/', slash + 1)) {
+            directories.add(path + pathToFile.substring(0, slash + 1));
         }
+        return directories;
     }
 
-    private List<String> getDirectoryContent(String path) {
-        return getDirectoryContent(path, false);
+    /**
+     * Looks the directories up in one query and writes the missing markers concurrently, so a
+     * folder upload costs one PUT per distinct directory rather than per file and level.
+     */
+    private void createDirectories(Collection<String> directories, Long id) {
+        if (directories.isEmpty()) {
+            return;
+        }
+
+        Set<String> existing = resourceMetadataService.findExisting(id, directories);
+        List<String> missing = directories.stream()
+                .filter(directory -> !existing.contains(directory))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Semaphore permits = new Semaphore(uploadProperties.maxConcurrentFiles());
+        List<Callable<Void>> markers = missing.stream()
+                .<Callable<Void>>map(directory -> MinioCallCounter.propagate(() -> {
+                    permits.acquire();
+                    try {
+                        minioRepository.createEmptyObject(directory);
+                        return null;
+                    } finally {
+                        permits.release();
+                    }
+                }))
+                .toList();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Void> marker : executor.invokeAll(markers)) {
+                if (marker.state() == Future.State.FAILED) {
+                    throw new RuntimeException(marker.exceptionNow());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        resourceMetadataService.saveDirectories(id, missing);
+    }
+
+    private String getStorageKey(String absolutePath, Long id) {
+        return resourceMetadataService.findBlob(id, absolutePath)
+                .map(BlobService::getBlobKey)
+                .orElse(absolutePath);
     }
 
-    private List<String> getDirectoryContent(String absolutePath, boolean recursive) {
-        Iterable<Result<Item>> iterable = minioRepository.listObjects(absolutePath, recursive);
-        Stream<Item> ItemsStream = StreamSupport.stream(iterable.spliterator(), false).map(this::unwrapResult);
-        return ItemsStream.map(Item::objectName).collect(Collectors.toList());
+    /**
+     * Indexed contents of a directory ordered like a MinIO listing, which needs no MinIO round trip
+     * as the index has every file and directory along with logical sizes and blobs.
+     */
+    private List<Item> getArchiveItems(String absolutePath, Long id) {
+        List<Item> items = resourceMetadataService.findIndexedItems(id, absolutePath).stream()
+                .sorted(Comparator.comparing(Item::objectName))
+                .toList();
+        storageMetrics.recordArchive(items.size());
+        return items;
     }
 
     private Item unwrapResult(Result<Item> itemResult) {
@@ -279,4 +848,9 @@ public class ResourceService {
         }
     }
 
+    @FunctionalInterface
+    private interface RangeWriter {
+        void write(long offset, long length) throws IOException;
+    }
+
 }
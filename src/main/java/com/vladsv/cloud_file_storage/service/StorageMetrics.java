@@ -0,0 +1,34 @@
+package com.vladsv.cloud_file_storage.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size distributions of archives and listings, for capacity planning.
+ */
+@Component
+public class StorageMetrics {
+
+    private final DistributionSummary archiveEntries;
+    private final DistributionSummary listingSize;
+
+    public StorageMetrics(MeterRegistry meterRegistry) {
+        this.archiveEntries = DistributionSummary.builder("storage.archive.entries")
+                .description("Entries per ZIP archive")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.listingSize = DistributionSummary.builder("storage.listing.size")
+                .description("Resources per directory listing")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void recordArchive(int entries) {
+        archiveEntries.record(entries);
+    }
+
+    public void recordListing(int size) {
+        listingSize.record(size);
+    }
+}
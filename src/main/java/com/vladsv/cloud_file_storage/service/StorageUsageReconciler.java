@@ -0,0 +1,32 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.repository.StorageUsageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically corrects drift between the usage counters and the resource index, one
+ * transaction per user so a single row lock is held at a time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StorageUsageReconciler {
+
+    private final StorageUsageService storageUsageService;
+    private final StorageUsageRepository storageUsageRepository;
+
+    @Scheduled(initialDelayString = "${spring.quota.reconcile_interval:1h}",
+            fixedDelayString = "${spring.quota.reconcile_interval:1h}")
+    public void reconcileAll() {
+        for (Long userId : storageUsageRepository.findAllUserIds()) {
+            try {
+                storageUsageService.reconcile(userId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile storage usage of user {}", userId, e);
+            }
+        }
+    }
+}
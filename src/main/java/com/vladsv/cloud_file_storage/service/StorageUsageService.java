@@ -0,0 +1,148 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.QuotaProperties;
+import com.vladsv.cloud_file_storage.dto.StorageUsageDto;
+import com.vladsv.cloud_file_storage.entity.StorageUsage;
+import com.vladsv.cloud_file_storage.exception.QuotaExceededException;
+import com.vladsv.cloud_file_storage.repository.ResourceMetadataRepository;
+import com.vladsv.cloud_file_storage.repository.StorageUsageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Keeps a running total of bytes and files per user in {@code storage_usage}, so reading usage
+ * and checking quotas is a primary key lookup. Totals are adjusted by {@link ResourceMetadataService}
+ * in the same transaction that changes the index, directory markers aren't counted.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageUsageService {
+
+    private static final String QUOTA_EXCEEDED = "Storage quota exceeded: %d of %d bytes used, %d more requested";
+
+    private final StorageUsageRepository storageUsageRepository;
+    private final ResourceMetadataRepository resourceMetadataRepository;
+    private final QuotaProperties quotaProperties;
+
+    @Transactional(readOnly = true)
+    public StorageUsageDto getUsage(Long userId) {
+        return storageUsageRepository.findById(userId)
+                .map(usage -> new StorageUsageDto(usage.getBytes(), usage.getObjects(), getQuota(usage)))
+                .orElseGet(() -> new StorageUsageDto(0, 0, quotaProperties.defaultQuota().toBytes()));
+    }
+
+    /**
+     * Rejects an upload of {@code incomingBytes} that doesn't fit into the quota. Callers that
+     * don't know the size upfront pass 0, which only rejects users who are already at their quota.
+     * This is an early check only, uploads {@link #reserve} their bytes before they're recorded.
+     */
+    public void checkQuota(Long userId, long incomingBytes) {
+        if (!quotaProperties.enabled()) {
+            return;
+        }
+
+        long remaining = getRemainingQuota(userId);
+        if (remaining == 0 || incomingBytes > remaining) {
+            throw quotaExceeded(userId, incomingBytes);
+        }
+    }
+
+    /**
+     * Bytes the user can still store, for uploads whose size is only known once they're read.
+     * Bytes reserved by uploads in flight are already taken.
+     */
+    public long getRemainingQuota(Long userId) {
+        if (!quotaProperties.enabled()) {
+            return Long.MAX_VALUE;
+        }
+
+        return storageUsageRepository.findById(userId)
+                .map(usage -> Math.max(0, getQuota(usage) - usage.getBytes() - usage.getReserved()))
+                .orElseGet(() -> quotaProperties.defaultQuota().toBytes());
+    }
+
+    /**
+     * Sets {@code bytes} aside for an upload with one conditional update, so concurrent uploads
+     * can't all pass the check before any of them is recorded. The reservation has to be
+     * {@link #release released} once the upload is indexed or has failed.
+     */
+    @Transactional
+    public void reserve(Long userId, long bytes) {
+        if (!quotaProperties.enabled() || bytes == 0) {
+            return;
+        }
+
+        long defaultQuota = quotaProperties.defaultQuota().toBytes();
+        if (storageUsageRepository.reserve(userId, bytes, defaultQuota) == 1) {
+            return;
+        }
+        if (!storageUsageRepository.existsById(userId)) {
+            storageUsageRepository.add(userId, 0, 0);
+            if (storageUsageRepository.reserve(userId, bytes, defaultQuota) == 1) {
+                return;
+            }
+        }
+        throw quotaExceeded(userId, bytes);
+    }
+
+    @Transactional
+    public void release(Long userId, long bytes) {
+        if (quotaProperties.enabled() && bytes != 0) {
+            storageUsageRepository.release(userId, bytes);
+        }
+    }
+
+    @Transactional
+    public void record(Long userId, long bytes, long objects) {
+        if (bytes != 0 || objects != 0) {
+            storageUsageRepository.add(userId, bytes, objects);
+        }
+    }
+
+    /**
+     * Recomputes the totals of a user from the resource index. The usage row is locked before
+     * the index is summed, so writers that commit meanwhile are either part of the sum or apply
+     * their delta on top of the corrected totals afterwards. Reservations nobody took for longer
+     * than the reservation timeout were left by uploads that never finished and are dropped.
+     */
+    @Transactional
+    public void reconcile(Long userId) {
+        StorageUsage usage = storageUsageRepository.findByUserIdForUpdate(userId).orElseGet(() -> {
+            storageUsageRepository.add(userId, 0, 0);
+            return storageUsageRepository.findByUserIdForUpdate(userId).orElseThrow();
+        });
+        ResourceMetadataRepository.FileTotals totals = resourceMetadataRepository.sumFiles(userId);
+
+        if (usage.getBytes() != totals.getBytes() || usage.getObjects() != totals.getObjects()) {
+            log.info("Corrected storage usage of user {}: {} bytes / {} files -> {} bytes / {} files", userId,
+                    usage.getBytes(), usage.getObjects(), totals.getBytes(), totals.getObjects());
+            usage.setBytes(totals.getBytes());
+            usage.setObjects(totals.getObjects());
+            storageUsageRepository.save(usage);
+        }
+
+        if (usage.getReserved() > 0 && isStale(usage.getReservedAt())) {
+            log.info("Dropped {} bytes of stale reservations of user {}", usage.getReserved(), userId);
+            usage.setReserved(0);
+            storageUsageRepository.save(usage);
+        }
+    }
+
+    private boolean isStale(Instant reservedAt) {
+        return reservedAt == null || reservedAt.isBefore(Instant.now().minus(quotaProperties.reservationTimeout()));
+    }
+
+    private QuotaExceededException quotaExceeded(Long userId, long incomingBytes) {
+        StorageUsageDto usage = getUsage(userId);
+        return new QuotaExceededException(QUOTA_EXCEEDED.formatted(usage.bytes(), usage.quota(), incomingBytes));
+    }
+
+    private long getQuota(StorageUsage usage) {
+        return usage.getQuota() == null ? quotaProperties.defaultQuota().toBytes() : usage.getQuota();
+    }
+}
@@ -0,0 +1,222 @@
+package com.vladsv.cloud_file_storage.service;
+
+import io.minio.messages.Item;
+import org.springframework.util.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static utils.PathUtils.isDir;
+
+public final class StoredZipArchive {
+
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP64_ENTRY_LIMIT = 0xFFFF;
+    private static final short FLAGS = 0x0800;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int ZIP64_LOCAL_EXTRA_LENGTH = 20;
+    private static final int ZIP64_CENTRAL_EXTRA_LENGTH = 28;
+    private static final int ZIP64_END_LENGTH = 56 + 20;
+    private static final int END_LENGTH = 22;
+
+    private final List<Entry> entries;
+    private final long centralDirectoryOffset;
+    private final long centralDirectorySize;
+    private final boolean zip64;
+    private final long length;
+    private final String etag;
+
+    private StoredZipArchive(List<Entry> entries, long centralDirectoryOffset, long centralDirectorySize, String etag) {
+        this.entries = entries;
+        this.centralDirectoryOffset = centralDirectoryOffset;
+        this.centralDirectorySize = centralDirectorySize;
+        this.zip64 = entries.size() >= ZIP64_ENTRY_LIMIT
+                || centralDirectoryOffset >= ZIP64_LIMIT
+                || centralDirectorySize >= ZIP64_LIMIT;
+        this.length = centralDirectoryOffset + centralDirectorySize + (zip64 ? ZIP64_END_LENGTH : 0) + END_LENGTH;
+        this.etag = etag;
+    }
+
+    public static StoredZipArchive of(String basePath, List<Item> items) {
+        List<Entry> entries = new ArrayList<>(items.size());
+        StringBuilder fingerprint = new StringBuilder();
+        long offset = 0;
+        for (Item item : items) {
+            Entry entry = new Entry(item,
+                    item.objectName().substring(basePath.length()).getBytes(StandardCharsets.UTF_8),
+                    offset,
+                    toDosTime(item));
+            entries.add(entry);
+            offset = entry.dataEnd();
+            fingerprint.append(item.objectName()).append(':').append(item.etag()).append(':').append(item.size()).append('\n');
+        }
+
+        long centralDirectorySize = entries.stream().mapToLong(Entry::centralHeaderLength).sum();
+        String etag = "\"" + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        return new StoredZipArchive(List.copyOf(entries), offset, centralDirectorySize, etag);
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public long centralDirectoryOffset() {
+        return centralDirectoryOffset;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    public byte[] endRecords() {
+        ByteBuffer buffer = ByteBuffer.allocate((zip64 ? ZIP64_END_LENGTH : 0) + END_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        long zip64EndOffset = centralDirectoryOffset + centralDirectorySize;
+        if (zip64) {
+            buffer.putInt(0x06064b50);
+            buffer.putLong(44);
+            buffer.putShort((short) 45);
+            buffer.putShort((short) 45);
+            buffer.putInt(0);
+            buffer.putInt(0);
+            buffer.putLong(entries.size());
+            buffer.putLong(entries.size());
+            buffer.putLong(centralDirectorySize);
+            buffer.putLong(centralDirectoryOffset);
+
+            buffer.putInt(0x07064b50);
+            buffer.putInt(0);
+            buffer.putLong(zip64EndOffset);
+            buffer.putInt(1);
+        }
+
+        buffer.putInt(0x06054b50);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) (zip64 ? ZIP64_ENTRY_LIMIT : entries.size()));
+        buffer.putShort((short) (zip64 ? ZIP64_ENTRY_LIMIT : entries.size()));
+        buffer.putInt(zip64 ? (int) ZIP64_LIMIT : (int) centralDirectorySize);
+        buffer.putInt(zip64 ? (int) ZIP64_LIMIT : (int) centralDirectoryOffset);
+        buffer.putShort((short) 0);
+        return buffer.array();
+    }
+
+    private static int toDosTime(Item item) {
+        ZonedDateTime modified = item.lastModified() == null
+                ? null
+                : item.lastModified().withZoneSameInstant(ZoneOffset.UTC);
+        if (modified == null || modified.getYear() < 1980) {
+            return (1 << 5 | 1) << 16;
+        }
+
+        int date = (modified.getYear() - 1980) << 9 | modified.getMonthValue() << 5 | modified.getDayOfMonth();
+        int time = modified.getHour() << 11 | modified.getMinute() << 5 | modified.getSecond() / 2;
+        return date << 16 | time;
+    }
+
+    public record Entry(Item item, byte[] name, long localHeaderOffset, int dosTime) {
+
+        public String objectName() {
+            return item.objectName();
+        }
+
+        public String storageKey() {
+            return IndexedItem.getStorageKey(item);
+        }
+
+        /**
+         * CRC-32 of the content if the index has it, directories and empty files have 0.
+         */
+        public Long crc32() {
+            return size() == 0 ? Long.valueOf(0) : IndexedItem.getCrc32(item);
+        }
+
+        public boolean isDirectory() {
+            return isDir(item.objectName());
+        }
+
+        public long size() {
+            return isDirectory() ? 0 : item.size();
+        }
+
+        public boolean isZip64() {
+            return size() >= ZIP64_LIMIT || localHeaderOffset >= ZIP64_LIMIT;
+        }
+
+        public long dataOffset() {
+            return localHeaderOffset + LOCAL_HEADER_LENGTH + name.length + (isZip64() ? ZIP64_LOCAL_EXTRA_LENGTH : 0);
+        }
+
+        public long dataEnd() {
+            return dataOffset() + size();
+        }
+
+        public long centralHeaderLength() {
+            return CENTRAL_HEADER_LENGTH + name.length + (isZip64() ? ZIP64_CENTRAL_EXTRA_LENGTH : 0);
+        }
+
+        public byte[] localHeader(long crc) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (dataOffset() - localHeaderOffset)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0x04034b50);
+            buffer.putShort(versionNeeded());
+            buffer.putShort(FLAGS);
+            buffer.putShort((short) 0);
+            buffer.putInt(dosTime);
+            buffer.putInt((int) crc);
+            buffer.putInt(isZip64() ? (int) ZIP64_LIMIT : (int) size());
+            buffer.putInt(isZip64() ? (int) ZIP64_LIMIT : (int) size());
+            buffer.putShort((short) name.length);
+            buffer.putShort((short) (isZip64() ? ZIP64_LOCAL_EXTRA_LENGTH : 0));
+            buffer.put(name);
+            if (isZip64()) {
+                buffer.putShort((short) 0x0001);
+                buffer.putShort((short) 16);
+                buffer.putLong(size());
+                buffer.putLong(size());
+            }
+            return buffer.array();
+        }
+
+        public byte[] centralHeader(long crc) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) centralHeaderLength()).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0x02014b50);
+            buffer.putShort(versionNeeded());
+            buffer.putShort(versionNeeded());
+            buffer.putShort(FLAGS);
+            buffer.putShort((short) 0);
+            buffer.putInt(dosTime);
+            buffer.putInt((int) crc);
+            buffer.putInt(isZip64() ? (int) ZIP64_LIMIT : (int) size());
+            buffer.putInt(isZip64() ? (int) ZIP64_LIMIT : (int) size());
+            buffer.putShort((short) name.length);
+            buffer.putShort((short) (isZip64() ? ZIP64_CENTRAL_EXTRA_LENGTH : 0));
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 0);
+            buffer.putInt(isDirectory() ? 0x10 : 0);
+            buffer.putInt(isZip64() ? (int) ZIP64_LIMIT : (int) localHeaderOffset);
+            buffer.put(name);
+            if (isZip64()) {
+                buffer.putShort((short) 0x0001);
+                buffer.putShort((short) 24);
+                buffer.putLong(size());
+                buffer.putLong(size());
+                buffer.putLong(localHeaderOffset);
+            }
+            return buffer.array();
+        }
+
+        private short versionNeeded() {
+            return (short) (isZip64() ? 45 : 20);
+        }
+    }
+}
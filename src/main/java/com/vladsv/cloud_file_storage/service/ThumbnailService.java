@@ -0,0 +1,281 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.ThumbnailProperties;
+import com.vladsv.cloud_file_storage.exception.ResourceDoesNotExistsException;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import io.minio.Result;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import utils.ResourcePath;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size JPEG previews of images, kept under {@code thumbnails/} next to the user folders, so
+ * listings never see them. A thumbnail records the etag of the source it was made from and is
+ * regenerated once the source changes; files that can't be previewed get an empty one, so they
+ * aren't decoded again on every request.
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+
+    private static final String THUMBNAILS_DIRECTORY = "thumbnails/";
+    private static final String THUMBNAIL_EXTENSION = ".jpg";
+    private static final String SOURCE_ETAG = "source-etag";
+    private static final String SOURCE_ETAG_HEADER = "x-amz-meta-" + SOURCE_ETAG;
+    private static final String NO_THUMBNAIL = "No thumbnail available for '%s'";
+    private static final int REMOVE_BATCH_SIZE = 1000;
+
+    private final MinioRepository minioRepository;
+    private final ThumbnailProperties thumbnailProperties;
+    private final List<MediaType> types;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ThumbnailService(MinioRepository minioRepository, ThumbnailProperties thumbnailProperties) {
+        this.minioRepository = minioRepository;
+        this.thumbnailProperties = thumbnailProperties;
+        this.types = thumbnailProperties.types().stream()
+                .map(MediaType::parseMediaType)
+                .toList();
+        this.executor = new ThreadPoolExecutor(
+                thumbnailProperties.poolSize(), thumbnailProperties.poolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(thumbnailProperties.queueCapacity()),
+                Thread.ofPlatform().name("thumbnail-", 0).factory());
+    }
+
+    public static String getThumbnailKey(String absolutePath) {
+        return THUMBNAILS_DIRECTORY + absolutePath + THUMBNAIL_EXTENSION;
+    }
+
+    public boolean supports(String absolutePath) {
+        return thumbnailProperties.enabled() && MediaTypeFactory.getMediaType(absolutePath)
+                .map(type -> types.stream().anyMatch(rule -> rule.includes(type)))
+                .orElse(false);
+    }
+
+    /**
+     * Queues generation unless it's already queued. When the queue is full the request is dropped,
+     * the thumbnail is then made on its first request instead.
+     */
+    public void schedule(String absolutePath, String storageKey, String sourceEtag) {
+        if (!supports(absolutePath)) {
+            return;
+        }
+
+        String key = getThumbnailKey(absolutePath);
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(key, storageKey, sourceEtag);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to generate thumbnail of {}", absolutePath, e);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+        }
+    }
+
+    /**
+     * Serves the thumbnail made from the current version of the source. A missing or outdated one
+     * is queued and answered with 202, so clients retry after a moment. Only a URL versioned with
+     * the current source etag is cached for {@code maxAge}, any other has to be revalidated, since
+     * the path alone keeps pointing at the thumbnail once the source changes.
+     */
+    public void writeThumbnail(String absolutePath, String storageKey, String sourceEtag, String version,
+                               HttpServletRequest request, HttpServletResponse response) {
+        if (!supports(absolutePath)) {
+            throw new ResourceDoesNotExistsException(NO_THUMBNAIL.formatted(ResourcePath.of(absolutePath).name()));
+        }
+
+        String key = getThumbnailKey(absolutePath);
+        Optional<StatObjectResponse> thumbnail = minioRepository.findObject(key)
+                .filter(stat -> sourceEtag.equals(stat.headers().get(SOURCE_ETAG_HEADER)));
+        if (thumbnail.isEmpty()) {
+            schedule(absolutePath, storageKey, sourceEtag);
+            response.setStatus(HttpStatus.ACCEPTED.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        if (thumbnail.get().size() == 0) {
+            throw new ResourceDoesNotExistsException(NO_THUMBNAIL.formatted(ResourcePath.of(absolutePath).name()));
+        }
+
+        CacheControl cacheControl = sourceEtag.equals(version)
+                ? CacheControl.maxAge(thumbnailProperties.maxAge()).cachePrivate()
+                : CacheControl.noCache().cachePrivate();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + sourceEtag + "\"")) {
+            return;
+        }
+
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLengthLong(thumbnail.get().size());
+        try (InputStream in = minioRepository.getObject(key)) {
+            OutputStream out = response.getOutputStream();
+            StreamUtils.copy(in, out);
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void remove(String absolutePath) {
+        if (supports(absolutePath)) {
+            minioRepository.removeObject(getThumbnailKey(absolutePath));
+        }
+    }
+
+    public void removeTree(String absoluteDirectory) {
+        if (!thumbnailProperties.enabled()) {
+            return;
+        }
+
+        List<String> batch = new ArrayList<>(REMOVE_BATCH_SIZE);
+        for (Result<Item> result : minioRepository.listObjects(THUMBNAILS_DIRECTORY + absoluteDirectory, true)) {
+            try {
+                batch.add(result.get().objectName());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            if (batch.size() == REMOVE_BATCH_SIZE) {
+                minioRepository.removeObjects(batch);
+                batch = new ArrayList<>(REMOVE_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            minioRepository.removeObjects(batch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generate(String key, String storageKey, String sourceEtag) {
+        byte[] thumbnail = new byte[0];
+        if (minioRepository.statObject(storageKey).size() <= thumbnailProperties.maxSourceSize().toBytes()) {
+            try (InputStream in = minioRepository.getObject(storageKey)) {
+                thumbnail = render(in);
+            } catch (IOException e) {
+                log.debug("Cannot render thumbnail of {}; {}", storageKey, e.getMessage());
+            }
+        }
+
+        minioRepository.putObject(key, new ByteArrayInputStream(thumbnail), MediaType.IMAGE_JPEG_VALUE,
+                Map.of(SOURCE_ETAG, sourceEtag));
+    }
+
+    /**
+     * Decodes with subsampling close to the target size, so a large photo never materialises at
+     * full resolution, then scales it down to fit the square.
+     */
+    private byte[] render(InputStream source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > thumbnailProperties.maxSourcePixels()) {
+                    throw new IOException("Image is too large");
+                }
+
+                int size = thumbnailProperties.size();
+                int step = Math.max(1, Math.min(width, height) / size);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return encode(scale(reader.read(0, param), size));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(thumbnailProperties.quality());
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
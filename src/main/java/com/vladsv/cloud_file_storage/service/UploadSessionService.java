@@ -0,0 +1,251 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.PresignedProperties;
+import com.vladsv.cloud_file_storage.config.properties.UploadProperties;
+import com.vladsv.cloud_file_storage.dto.PresignedUrlDto;
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.dto.UploadSessionRequestDto;
+import com.vladsv.cloud_file_storage.dto.UploadSessionResponseDto;
+import com.vladsv.cloud_file_storage.entity.UploadSession;
+import com.vladsv.cloud_file_storage.exception.InvalidResourcePathException;
+import com.vladsv.cloud_file_storage.exception.InvalidResourceUploadBodyException;
+import com.vladsv.cloud_file_storage.exception.ResourceAlreadyExistsException;
+import com.vladsv.cloud_file_storage.exception.ResourceDoesNotExistsException;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import com.vladsv.cloud_file_storage.repository.PresignedUrlRepository;
+import com.vladsv.cloud_file_storage.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import utils.ResourcePath;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+@Service
+@RequiredArgsConstructor
+public class UploadSessionService {
+
+    private static final int MAX_CHUNKS = 10_000;
+
+    private static final String DIRECTORY_UPLOAD_REQUESTED = "Upload sessions are available for files only";
+    private static final String UPLOAD_SESSION_DOES_NOT_EXIST = "Upload session '%s' doesn't exist";
+    private static final String RESOURCE_ALREADY_EXISTS = "Resource '%s' already in destination folder";
+    private static final String FILE_IS_TOO_LARGE = "File exceeds maximum of %d chunks";
+    private static final String INVALID_CHUNK_NUMBER = "Chunk number must be between 1 and %d";
+    private static final String INVALID_CHUNK_SIZE = "Chunk %d must be exactly %d bytes";
+    private static final String MISSING_CHUNKS = "Upload is incomplete, missing chunks: %s";
+    private static final String SIZE_MISMATCH = "Uploaded chunks add up to %d bytes, but %d were declared";
+
+    private final MinioRepository minioRepository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final PresignedUrlRepository presignedUrlRepository;
+    private final ResourceService resourceService;
+    private final ResourceMetadataService resourceMetadataService;
+    private final StorageUsageService storageUsageService;
+    private final BlobService blobService;
+    private final ThumbnailService thumbnailService;
+    private final UploadProperties uploadProperties;
+    private final PresignedProperties presignedProperties;
+
+    public UploadSessionResponseDto createSession(UploadSessionRequestDto request, Long userId) {
+        ResourcePath fileName = ResourcePath.parse(request.name());
+        String name = fileName.value();
+        String directory = ResourcePath.parse(request.path()).asDirectory().toAbsolute(userId);
+
+        if (fileName.isRoot() || fileName.isDir()) {
+            throw new InvalidResourcePathException(DIRECTORY_UPLOAD_REQUESTED);
+        }
+
+        if (resourceMetadataService.exists(userId, directory + name)) {
+            throw new ResourceAlreadyExistsException(RESOURCE_ALREADY_EXISTS.formatted(name));
+        }
+
+        long chunkSize = uploadProperties.chunkSize().toBytes();
+        long totalChunks = (request.size() + chunkSize - 1) / chunkSize;
+        if (totalChunks > MAX_CHUNKS) {
+            throw new InvalidResourceUploadBodyException(FILE_IS_TOO_LARGE.formatted(MAX_CHUNKS));
+        }
+        storageUsageService.checkQuota(userId, request.size());
+
+        if (request.sha256() != null && isKnownBlob(request.sha256(), request.size(), userId)) {
+            return new UploadSessionResponseDto(null, null, null, request.size(), List.of(),
+                    linkKnownBlob(directory, name, request.size(), request.sha256(), userId));
+        }
+
+        String contentType = MediaTypeFactory.getMediaType(name)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+
+        UploadSession session = UploadSession.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .directory(directory)
+                .name(name)
+                .multipartUploadId(minioRepository.createMultipartUpload(directory + name, contentType))
+                .size(request.size())
+                .chunkSize(chunkSize)
+                .totalChunks((int) totalChunks)
+                .build();
+        uploadSessionRepository.save(session);
+
+        return toResponseDto(session, Map.of());
+    }
+
+    public UploadSessionResponseDto getSession(String uploadId, Long userId) {
+        UploadSession session = findSession(uploadId, userId);
+        return toResponseDto(session, findUploadedChunks(session));
+    }
+
+    public void uploadChunk(String uploadId, int chunkNumber, InputStream stream, long length, Long userId) {
+        UploadSession session = findSession(uploadId, userId);
+        validateChunkNumber(session, chunkNumber);
+
+        long expectedSize = session.expectedChunkSize(chunkNumber);
+        if (length != expectedSize) {
+            throw new InvalidResourceUploadBodyException(INVALID_CHUNK_SIZE.formatted(chunkNumber, expectedSize));
+        }
+
+        String etag = minioRepository.uploadPart(
+                session.object(), session.multipartUploadId(), chunkNumber, stream, length);
+        uploadSessionRepository.saveChunk(uploadId, chunkNumber, etag);
+    }
+
+    public PresignedUrlDto getChunkUploadUrl(String uploadId, int chunkNumber, Long userId) {
+        UploadSession session = findSession(uploadId, userId);
+        validateChunkNumber(session, chunkNumber);
+
+        String url = presignedUrlRepository.getPartUploadUrl(
+                session.object(), session.multipartUploadId(), chunkNumber);
+        return new PresignedUrlDto(url, "PUT", presignedUrlRepository.getExpirySeconds(), null);
+    }
+
+    public ResourceResponseDto completeSession(String uploadId, Long userId) {
+        UploadSession session = findSession(uploadId, userId);
+        Map<Integer, String> chunks = findUploadedChunks(session);
+
+        List<Integer> missing = IntStream.rangeClosed(1, session.totalChunks())
+                .filter(number -> !chunks.containsKey(number))
+                .boxed()
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new InvalidResourceUploadBodyException(MISSING_CHUNKS.formatted(missing));
+        }
+
+        if (resourceMetadataService.exists(userId, session.object())) {
+            abortSession(session);
+            throw new ResourceAlreadyExistsException(RESOURCE_ALREADY_EXISTS.formatted(session.name()));
+        }
+
+        resourceService.createParentDirectoriesIfNeeded(session.directory(), session.name(), userId);
+        Optional<String> completed = minioRepository.completeMultipartUpload(
+                session.object(), session.multipartUploadId(), chunks);
+        if (completed.isEmpty()) {
+            abortSession(session);
+            throw new ResourceAlreadyExistsException(RESOURCE_ALREADY_EXISTS.formatted(session.name()));
+        }
+        String etag = completed.get();
+        uploadSessionRepository.delete(uploadId);
+        verifyCompletedSize(session);
+
+        return resourceService.indexWithinQuota(userId, session.size(),
+                () -> minioRepository.removeObject(session.object()), () -> {
+                    ResourceResponseDto resource = resourceMetadataService.save(
+                            userId, session.object(), session.size(), etag, null);
+                    thumbnailService.schedule(session.object(), session.object(), etag);
+                    return resource;
+                });
+    }
+
+    public void abortSession(String uploadId, Long userId) {
+        abortSession(findSession(uploadId, userId));
+    }
+
+    /**
+     * Only blobs the user already references are linked by hash alone, otherwise knowing a hash
+     * would be enough to read someone else's file.
+     */
+    private boolean isKnownBlob(String hash, long size, Long userId) {
+        return blobService.isEnabled()
+                && resourceMetadataService.referencesBlob(userId, hash)
+                && blobService.exists(hash, size);
+    }
+
+    private ResourceResponseDto linkKnownBlob(String directory, String name, long size, String hash, Long userId) {
+        resourceService.createParentDirectoriesIfNeeded(directory, name, userId);
+        return resourceService.indexWithinQuota(userId, size, () -> { }, () -> {
+            blobService.acquire(hash, size);
+            ResourceResponseDto resource;
+            try {
+                resource = resourceMetadataService.save(userId, directory + name, size, hash, hash, null);
+            } catch (RuntimeException e) {
+                blobService.release(hash);
+                throw e;
+            }
+            thumbnailService.schedule(directory + name, BlobService.getBlobKey(hash), hash);
+            return resource;
+        });
+    }
+
+    /**
+     * Chunks put through presigned links bypass the size check of {@link #uploadChunk}, so the
+     * assembled object is stat'ed before the declared size is charged to the user.
+     */
+    private void verifyCompletedSize(UploadSession session) {
+        minioRepository.evictStat(session.object());
+        long size = minioRepository.statObject(session.object()).size();
+        if (size != session.size()) {
+            minioRepository.removeObject(session.object());
+            throw new InvalidResourceUploadBodyException(SIZE_MISMATCH.formatted(size, session.size()));
+        }
+    }
+
+    private void abortSession(UploadSession session) {
+        minioRepository.abortMultipartUpload(session.object(), session.multipartUploadId());
+        uploadSessionRepository.delete(session.id());
+    }
+
+    private void validateChunkNumber(UploadSession session, int chunkNumber) {
+        if (chunkNumber < 1 || chunkNumber > session.totalChunks()) {
+            throw new InvalidResourceUploadBodyException(INVALID_CHUNK_NUMBER.formatted(session.totalChunks()));
+        }
+    }
+
+    private Map<Integer, String> findUploadedChunks(UploadSession session) {
+        Map<Integer, String> chunks = uploadSessionRepository.findChunks(session.id());
+        if (!presignedProperties.enabled()) {
+            return chunks;
+        }
+
+        Map<Integer, String> merged = new TreeMap<>(minioRepository.listParts(session.object(), session.multipartUploadId()));
+        merged.putAll(chunks);
+        return merged;
+    }
+
+    private UploadSession findSession(String uploadId, Long userId) {
+        return uploadSessionRepository.findById(uploadId)
+                .filter(session -> session.userId().equals(userId))
+                .orElseThrow(() -> new ResourceDoesNotExistsException(UPLOAD_SESSION_DOES_NOT_EXIST.formatted(uploadId)));
+    }
+
+    private UploadSessionResponseDto toResponseDto(UploadSession session, Map<Integer, String> chunks) {
+        int contiguous = 0;
+        while (chunks.containsKey(contiguous + 1)) {
+            contiguous++;
+        }
+        long offset = Math.min(session.size(), contiguous * session.chunkSize());
+
+        return new UploadSessionResponseDto(session.id(),
+                session.chunkSize(),
+                session.totalChunks(),
+                offset,
+                List.copyOf(chunks.keySet()),
+                null);
+    }
+}
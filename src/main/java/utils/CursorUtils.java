@@ -0,0 +1,37 @@
+package utils;
+
+import com.vladsv.cloud_file_storage.exception.InvalidCursorException;
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@UtilityClass
+public class CursorUtils {
+
+    private static final String INVALID_CURSOR = "Cursor is malformed, use the value returned with the previous page";
+
+    public static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(INVALID_CURSOR);
+        }
+    }
+
+    public static int decodeOffset(String cursor) {
+        try {
+            int offset = Integer.parseInt(decode(cursor));
+            if (offset < 0) {
+                throw new InvalidCursorException(INVALID_CURSOR);
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(INVALID_CURSOR);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate in independently compressed frames of a fixed logical size, so a byte range is served
+ * by fetching and inflating only the frames covering it. An encoded object is laid out as
+ * <pre>
+ * frame*  [int compressed length][int logical length][raw deflate data]
+ * marker  [int 0]
+ * index   [long offset of frame] for every frame
+ * footer  [long logical size][int frame count][int frame size][int magic]
+ * </pre>
+ * Both directions are pull-based streams, so nothing is buffered beyond a single frame.
+ */
+public final class FramedDeflateCodec {
+
+    public static final String NAME = "deflate-frames";
+    public static final int FOOTER_LENGTH = 20;
+    public static final int END_MARKER_LENGTH = Integer.BYTES;
+    public static final int INDEX_ENTRY_LENGTH = Long.BYTES;
+
+    private static final int FRAME_HEADER_LENGTH = 2 * Integer.BYTES;
+    private static final int MAGIC = 0x46444631;
+
+    private FramedDeflateCodec() {
+    }
+
+    public static InputStream encode(InputStream source, int frameSize, int level) {
+        return new Encoder(source, frameSize, level);
+    }
+
+    /**
+     * Inflates frames until the end marker, or until the source ends when it is a slice of frames.
+     * The first {@code skip} logical bytes are dropped and at most {@code limit} are returned.
+     */
+    public static InputStream decode(InputStream source, long skip, long limit) {
+        return new Decoder(source, skip, limit);
+    }
+
+    public static InputStream decode(InputStream source) {
+        return decode(source, 0, Long.MAX_VALUE);
+    }
+
+    public static long readLogicalSize(byte[] footer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(footer);
+        if (footer.length != FOOTER_LENGTH || buffer.getInt(FOOTER_LENGTH - Integer.BYTES) != MAGIC) {
+            throw new IOException("Not a framed deflate footer");
+        }
+        return buffer.getLong(0);
+    }
+
+    public static long[] readOffsets(byte[] index) {
+        ByteBuffer buffer = ByteBuffer.wrap(index);
+        long[] offsets = new long[index.length / INDEX_ENTRY_LENGTH];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = buffer.getLong();
+        }
+        return offsets;
+    }
+
+    private static final class Encoder extends InputStream {
+
+        private final InputStream source;
+        private final Deflater deflater;
+        private final int frameSize;
+        private final byte[] frame;
+        private final byte[] buffer;
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final List<Long> offsets = new ArrayList<>();
+
+        private ByteBuffer pending = ByteBuffer.allocate(0);
+        private long physicalSize;
+        private long logicalSize;
+        private boolean finished;
+
+        private Encoder(InputStream source, int frameSize, int level) {
+            this.source = source;
+            this.deflater = new Deflater(level, true);
+            this.frameSize = frameSize;
+            this.frame = new byte[frameSize];
+            this.buffer = new byte[64 * 1024];
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (!pending.hasRemaining()) {
+                if (finished) {
+                    return -1;
+                }
+                fill();
+            }
+
+            int count = Math.min(len, pending.remaining());
+            pending.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            source.close();
+        }
+
+        private void fill() throws IOException {
+            output.reset();
+            int read = source.readNBytes(frame, 0, frameSize);
+            if (read > 0) {
+                writeFrame(read);
+            }
+            if (read < frameSize) {
+                writeTrailer();
+                finished = true;
+            }
+
+            byte[] bytes = output.toByteArray();
+            physicalSize += bytes.length;
+            pending = ByteBuffer.wrap(bytes);
+        }
+
+        private void writeFrame(int length) {
+            deflater.reset();
+            deflater.setInput(frame, 0, length);
+            deflater.finish();
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2);
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                compressed.write(buffer, 0, count);
+            }
+
+            offsets.add(physicalSize);
+            logicalSize += length;
+            output.writeBytes(ByteBuffer.allocate(FRAME_HEADER_LENGTH)
+                    .putInt(compressed.size())
+                    .putInt(length)
+                    .array());
+            output.writeBytes(compressed.toByteArray());
+        }
+
+        private void writeTrailer() {
+            ByteBuffer trailer = ByteBuffer.allocate(END_MARKER_LENGTH + offsets.size() * INDEX_ENTRY_LENGTH + FOOTER_LENGTH);
+            trailer.putInt(0);
+            offsets.forEach(trailer::putLong);
+            trailer.putLong(logicalSize)
+                    .putInt(offsets.size())
+                    .putInt(frameSize)
+                    .putInt(MAGIC);
+            output.writeBytes(trailer.array());
+        }
+    }
+
+    private static final class Decoder extends InputStream {
+
+        private final DataInputStream source;
+        private final Inflater inflater = new Inflater(true);
+
+        private byte[] compressed = new byte[0];
+        private byte[] frame = new byte[0];
+        private int position;
+        private int length;
+        private long skip;
+        private long remaining;
+        private boolean finished;
+
+        private Decoder(InputStream source, long skip, long limit) {
+            this.source = new DataInputStream(source);
+            this.skip = skip;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            while (position == length) {
+                if (finished || !nextFrame()) {
+                    return -1;
+                }
+            }
+
+            int count = (int) Math.min(Math.min(len, length - position), remaining);
+            System.arraycopy(frame, position, b, off, count);
+            position += count;
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            source.close();
+        }
+
+        private boolean nextFrame() throws IOException {
+            int compressedLength;
+            try {
+                compressedLength = source.readInt();
+            } catch (EOFException e) {
+                compressedLength = 0;
+            }
+            if (compressedLength == 0) {
+                finished = true;
+                return false;
+            }
+
+            int logicalLength = source.readInt();
+            if (compressed.length < compressedLength) {
+                compressed = new byte[compressedLength];
+            }
+            if (frame.length < logicalLength) {
+                frame = new byte[logicalLength];
+            }
+            source.readFully(compressed, 0, compressedLength);
+            inflate(compressedLength, logicalLength);
+
+            int skipped = (int) Math.min(skip, logicalLength);
+            skip -= skipped;
+            position = skipped;
+            length = logicalLength;
+            return true;
+        }
+
+        private void inflate(int compressedLength, int logicalLength) throws IOException {
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            try {
+                int total = 0;
+                while (total < logicalLength) {
+                    int count = inflater.inflate(frame, total, logicalLength - total);
+                    if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new IOException("Truncated deflate frame");
+                    }
+                    total += count;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the read that takes the stream past {@code limit} bytes, for bodies whose length is only
+ * known once they've been read.
+ */
+public class LimitedInputStream extends CountingInputStream {
+
+    private final long limit;
+    private boolean exceeded;
+
+    public LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        checkLimit();
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int result = super.read(b, off, len);
+        checkLimit();
+        return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        checkLimit();
+        return skipped;
+    }
+
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+    private void checkLimit() throws IOException {
+        if (getCount() > limit) {
+            exceeded = true;
+            throw new IOException("Stream exceeds its limit of %d bytes".formatted(limit));
+        }
+    }
+}
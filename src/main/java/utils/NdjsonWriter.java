@@ -0,0 +1,61 @@
+package utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes values as newline-delimited JSON straight to the servlet output stream. Writes block
+ * once the socket buffer is full, which throttles the producer to the client's read speed.
+ * Headers are committed on the first value, so errors raised before it still render as usual.
+ */
+public class NdjsonWriter implements Consumer<Object> {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final HttpServletResponse response;
+    private OutputStream outputStream;
+
+    public NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) {
+        this.objectMapper = objectMapper;
+        this.response = response;
+    }
+
+    @Override
+    public void accept(Object value) {
+        try {
+            boolean first = outputStream == null;
+            if (first) {
+                start();
+            }
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+            if (first) {
+                outputStream.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() {
+        try {
+            if (outputStream == null) {
+                start();
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void start() throws IOException {
+        response.setContentType(APPLICATION_NDJSON);
+        outputStream = response.getOutputStream();
+    }
+}
@@ -12,24 +12,19 @@ public class PathUtils {
     }
 
     public static String normalizePath(String path) {
-        return path.replaceAll("/{2,}", "/").replaceFirst("^/", "");
+        return ResourcePath.normalize(path);
     }
 
     public static String getUserRootDirectoryPattern(Long userId) {
-        return USER_ROOT_DIR_PATTERN.formatted(userId);
+        return ResourcePath.userRoot(userId);
     }
 
     public static String getResourceNameFromPath(String resource) {
-        String trimmed = isDir(resource) ? resource.substring(0, resource.length() - 1) :  resource;
-        int lastIndexOfSlash = trimmed.lastIndexOf("/");
-        String name = lastIndexOfSlash >= 0 ? trimmed.substring(lastIndexOfSlash + 1) : trimmed;
-        return isDir(resource) ? name + "/" : name;
+        return ResourcePath.of(resource).name();
     }
 
     public static String getPathToResource(String resource) {
-        String trimmed = isDir(resource) ? resource.substring(0, resource.length() - 1) :  resource;
-        int lastIndexOfSlash = trimmed.lastIndexOf("/");
-        return lastIndexOfSlash > 0 ? trimmed.substring(0, lastIndexOfSlash + 1) : "/";
+        return ResourcePath.of(resource).parent();
     }
 
     public static boolean isDir(String path) {
@@ -0,0 +1,130 @@
+package utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Path of a resource relative to the user's root folder, {@code docs/2024/report.pdf} or
+ * {@code docs/2024/} for a directory. It can be a view over an absolute object key, in which case
+ * the user root prefix is skipped rather than cut off. The name boundary is found once, when the
+ * path is created, so name and parent are a single substring each.
+ */
+public final class ResourcePath {
+
+    private static final ResourcePath ROOT = new ResourcePath("", 0);
+    private static final Map<Long, String> USER_ROOTS = new ConcurrentHashMap<>();
+
+    private final String path;
+    private final int start;
+    private final int nameStart;
+
+    private ResourcePath(String path, int start) {
+        this.path = path;
+        this.start = start;
+        int end = path.length() > start && path.charAt(path.length() - 1) == '/'
+                ? path.length() - 1
+                : path.length();
+        int slash = path.lastIndexOf('/', end - 1);
+        this.nameStart = slash >= start ? slash + 1 : start;
+    }
+
+    /**
+     * Normalises user input: runs of slashes are collapsed and leading ones dropped.
+     */
+    public static ResourcePath parse(String path) {
+        String normalized = normalize(path);
+        return normalized.isEmpty() ? ROOT : new ResourcePath(normalized, 0);
+    }
+
+    /**
+     * Wraps an already normalised relative path.
+     */
+    public static ResourcePath of(String path) {
+        return path.isEmpty() ? ROOT : new ResourcePath(path, 0);
+    }
+
+    /**
+     * View over an absolute object key of the given user, no copy of the relative part is made.
+     */
+    public static ResourcePath ofAbsolute(String absolutePath, Long userId) {
+        return new ResourcePath(absolutePath, userRoot(userId).length());
+    }
+
+    public static String userRoot(Long userId) {
+        return USER_ROOTS.computeIfAbsent(userId, PathUtils.USER_ROOT_DIR_PATTERN::formatted);
+    }
+
+    /**
+     * Single pass that returns the input itself when there's nothing to fix.
+     */
+    public static String normalize(String path) {
+        int length = path.length();
+        int i = 0;
+        while (i < length && !(path.charAt(i) == '/' && (i == 0 || path.charAt(i - 1) == '/'))) {
+            i++;
+        }
+        if (i == length) {
+            return path;
+        }
+
+        StringBuilder normalized = new StringBuilder(length).append(path, 0, i);
+        boolean afterSlash = true;
+        for (; i < length; i++) {
+            char c = path.charAt(i);
+            if (c != '/' || !afterSlash) {
+                normalized.append(c);
+            }
+            afterSlash = c == '/';
+        }
+        return normalized.toString();
+    }
+
+    public String value() {
+        return start == 0 ? path : path.substring(start);
+    }
+
+    public boolean isRoot() {
+        return path.length() == start;
+    }
+
+    public boolean isDir() {
+        return path.length() > start && path.charAt(path.length() - 1) == '/';
+    }
+
+    /**
+     * Last segment, with the trailing slash for a directory.
+     */
+    public String name() {
+        return path.substring(nameStart);
+    }
+
+    /**
+     * Folder containing the resource with its trailing slash, {@code /} at the top level.
+     */
+    public String parent() {
+        return nameStart - 1 > start ? path.substring(start, nameStart) : "/";
+    }
+
+    public ResourcePath asDirectory() {
+        return isRoot() || isDir() ? this : new ResourcePath(value() + "/", 0);
+    }
+
+    public String toAbsolute(Long userId) {
+        return userRoot(userId) + value();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ResourcePath other && value().equals(other.value());
+    }
+
+    @Override
+    public int hashCode() {
+        return value().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return value();
+    }
+}
@@ -0,0 +1,204 @@
+package com.vladsv.cloud_file_storage;
+
+import com.vladsv.cloud_file_storage.dto.UploadResultDto;
+import com.vladsv.cloud_file_storage.dto.UserRequestDto;
+import com.vladsv.cloud_file_storage.entity.Blob;
+import com.vladsv.cloud_file_storage.repository.BlobRepository;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import com.vladsv.cloud_file_storage.repository.UserRepository;
+import com.vladsv.cloud_file_storage.service.AuthService;
+import com.vladsv.cloud_file_storage.service.BlobService;
+import com.vladsv.cloud_file_storage.service.BlobSweeper;
+import com.vladsv.cloud_file_storage.service.ResourceService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.multipart.MultipartFile;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Testcontainers
+public class BlobServiceTests implements Containers {
+
+    @Autowired
+    BlobService blobService;
+
+    @Autowired
+    BlobSweeper blobSweeper;
+
+    @Autowired
+    BlobRepository blobRepository;
+
+    @Autowired
+    MinioRepository minioRepository;
+
+    @Autowired
+    ResourceService resourceService;
+
+    @Autowired
+    AuthService authService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    private Long userId;
+    private byte[] content;
+    private String hash;
+
+    @BeforeAll
+    static void containerStart() {
+        postgres.start();
+        minio.start();
+        redis.start();
+    }
+
+    @AfterAll
+    static void containerShutdown() {
+        postgres.stop();
+        minio.stop();
+        redis.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+
+        registry.add("spring.minio.endpoint", minio::getS3URL);
+        registry.add("spring.minio.username", minio::getUserName);
+        registry.add("spring.minio.password", minio::getPassword);
+        registry.add("spring.minio.bucket_name", () -> "blobs");
+
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+        registry.add("spring.data.redis.password", () -> "");
+
+        registry.add("spring.dedup.enabled", () -> "true");
+    }
+
+    @BeforeEach
+    void setUp() {
+        String username = "blobs-" + UUID.randomUUID();
+        authService.register(new UserRequestDto(username, "password"),
+                new MockHttpServletRequest(), new MockHttpServletResponse());
+        userId = userRepository.findByUsername(username).orElseThrow().getId();
+
+        content = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        hash = sha256(content);
+    }
+
+    @Test
+    public void givenSameContentUploadedTwice_whenUploaded_thenOneBlobIsStoredWithTwoReferences() {
+        upload("", file("a.txt"));
+        upload("", file("b.txt"));
+
+        assertEquals(2, refCount(hash));
+        assertTrue(minioRepository.findObject(BlobService.getBlobKey(hash)).isPresent());
+    }
+
+    @Test
+    public void givenAcquiredBlob_whenReleased_thenOnlyThatReferenceIsGivenBack() {
+        blobService.acquire(hash, content.length);
+        blobService.acquire(hash, content.length);
+
+        blobService.release(hash);
+
+        assertEquals(1, refCount(hash));
+    }
+
+    @Test
+    public void givenNameTheIndexRejects_whenUploaded_thenBlobReferenceIsGivenBack() {
+        List<UploadResultDto> results = upload("", file("x".repeat(300) + ".txt"));
+
+        assertEquals("FAILED", results.getFirst().status());
+        assertEquals(0, refCount(hash));
+    }
+
+    @Test
+    public void givenFilesSharingBlob_whenOneIsDeleted_thenOneReferenceIsReleased() {
+        upload("", file("a.txt"));
+        upload("", file("b.txt"));
+
+        resourceService.deleteResource("a.txt", userId);
+
+        assertEquals(1, refCount(hash));
+    }
+
+    @Test
+    public void givenDirectoryWithFilesSharingBlob_whenDirectoryIsDeleted_thenEveryReferenceInsideIsReleased() {
+        upload("docs/", file("a.txt"));
+        upload("docs/", file("b.txt"));
+        upload("", file("c.txt"));
+
+        resourceService.deleteResource("docs/", userId);
+
+        assertEquals(1, refCount(hash));
+    }
+
+    @Test
+    public void givenOrphanOlderThanGracePeriod_whenSwept_thenItsRowAndObjectAreRemoved() {
+        String recentHash = sha256(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        storeOrphan(hash, Instant.now().minus(Duration.ofHours(2)));
+        storeOrphan(recentHash, Instant.now());
+
+        blobSweeper.sweepOrphans();
+
+        assertFalse(blobRepository.existsById(hash));
+        assertTrue(minioRepository.findObject(BlobService.getBlobKey(hash)).isEmpty());
+        assertTrue(blobRepository.existsById(recentHash));
+        assertTrue(minioRepository.findObject(BlobService.getBlobKey(recentHash)).isPresent());
+    }
+
+    private List<UploadResultDto> upload(String path, MultipartFile file) {
+        return resourceService.uploadResources(path, List.of(file), userId);
+    }
+
+    private MockMultipartFile file(String name) {
+        return new MockMultipartFile("object", name, "text/plain", content);
+    }
+
+    private long refCount(String hash) {
+        return blobRepository.findById(hash).map(Blob::getRefCount).orElse(0L);
+    }
+
+    private void storeOrphan(String hash, Instant updatedAt) {
+        minioRepository.putObject(BlobService.getBlobKey(hash), new ByteArrayInputStream(content), "text/plain");
+        blobRepository.save(Blob.builder()
+                .hash(hash)
+                .size(content.length)
+                .refCount(0)
+                .updatedAt(updatedAt)
+                .build());
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.vladsv.cloud_file_storage;
 
+import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.MinIOContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 
@@ -10,4 +11,7 @@ public interface Containers {
     MinIOContainer minio = new MinIOContainer("minio/minio:latest")
             .withUserName("username")
             .withPassword("password");
+
+    GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
 }
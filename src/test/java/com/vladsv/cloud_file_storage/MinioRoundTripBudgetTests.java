@@ -0,0 +1,138 @@
+package com.vladsv.cloud_file_storage;
+
+import com.vladsv.cloud_file_storage.dto.UserRequestDto;
+import com.vladsv.cloud_file_storage.entity.User;
+import com.vladsv.cloud_file_storage.repository.MinioCallCounter;
+import com.vladsv.cloud_file_storage.repository.UserRepository;
+import com.vladsv.cloud_file_storage.service.AuthService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Asserts the MinIO round trips of endpoints served from the index, as counted by
+ * {@link com.vladsv.cloud_file_storage.filter.MinioCallCountingFilter}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+public class MinioRoundTripBudgetTests implements Containers {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    AuthService authService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    private User account;
+
+    @BeforeAll
+    static void containerStart() {
+        postgres.start();
+        minio.start();
+        redis.start();
+    }
+
+    @AfterAll
+    static void containerShutdown() {
+        postgres.stop();
+        minio.stop();
+        redis.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+
+        registry.add("spring.minio.endpoint", minio::getS3URL);
+        registry.add("spring.minio.username", minio::getUserName);
+        registry.add("spring.minio.password", minio::getPassword);
+        registry.add("spring.minio.bucket_name", () -> "round-trip-budget");
+
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+        registry.add("spring.data.redis.password", () -> "");
+    }
+
+    @BeforeEach
+    void signUp() {
+        String username = "budget-" + UUID.randomUUID();
+        authService.register(new UserRequestDto(username, "password"),
+                new MockHttpServletRequest(), new MockHttpServletResponse());
+        account = userRepository.findByUsername(username).orElseThrow();
+    }
+
+    @Test
+    public void givenNewDirectory_whenCreated_thenOneConditionalPutIsMade() throws Exception {
+        assertEquals(1, countCalls(post("/api/directory").param("path", "docs/").with(user(account))));
+    }
+
+    @Test
+    public void givenNestedDirectoryWithMissingParent_whenCreated_thenParentIsCreatedAndIndexed() throws Exception {
+        assertEquals(2, countCalls(post("/api/directory").param("path", "docs/2024/").with(user(account))));
+
+        assertEquals(0, countCalls(get("/api/directory").param("path", "docs/").with(user(account))));
+    }
+
+    @Test
+    public void givenFilesUploadedInParallel_whenUploaded_thenOnePutPerFileIsCounted() throws Exception {
+        countCalls(post("/api/directory").param("path", "docs/").with(user(account)));
+
+        int calls = countCalls(multipart("/api/resource")
+                .file(textFile("a.txt"))
+                .file(textFile("b.txt"))
+                .param("path", "docs/")
+                .with(user(account)));
+
+        assertEquals(2, calls);
+    }
+
+    @Test
+    public void givenIndexedResources_whenBrowsedAndSearched_thenNoMinioCallsAreMade() throws Exception {
+        countCalls(post("/api/directory").param("path", "docs/").with(user(account)));
+        countCalls(multipart("/api/resource").file(textFile("a.txt")).param("path", "docs/").with(user(account)));
+
+        assertEquals(0, countCalls(get("/api/resource").param("path", "docs/a.txt").with(user(account))));
+        assertEquals(0, countCalls(get("/api/directory").param("path", "docs/").with(user(account))));
+        assertEquals(0, countCalls(get("/api/resource/search").param("query", "a.txt").with(user(account))));
+    }
+
+    private int countCalls(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andReturn();
+        return (int) result.getRequest().getAttribute(MinioCallCounter.REQUEST_ATTRIBUTE);
+    }
+
+    private static MockMultipartFile textFile(String name) {
+        return new MockMultipartFile("object", name, "text/plain", name.getBytes(StandardCharsets.UTF_8));
+    }
+}
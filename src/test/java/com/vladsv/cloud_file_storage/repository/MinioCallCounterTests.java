@@ -0,0 +1,72 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MinioCallCounterTests {
+
+    @AfterEach
+    void clearCounter() {
+        MinioCallCounter.stop();
+    }
+
+    @Test
+    public void givenStartedCounter_whenTasksArePropagatedToVirtualThreads_thenTheirCallsAreCounted() throws Exception {
+        MinioCallCounter.start();
+        MinioCallCounter.increment();
+
+        List<Callable<Void>> tasks = List.of(
+                MinioCallCounter.propagate(() -> countCalls(2)),
+                MinioCallCounter.propagate(() -> countCalls(3)));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Void> task : executor.invokeAll(tasks)) {
+                task.get();
+            }
+        }
+
+        assertEquals(6, MinioCallCounter.stop());
+    }
+
+    @Test
+    public void givenStartedCounter_whenTaskIsNotPropagated_thenItsCallsAreNotCounted() throws Exception {
+        MinioCallCounter.start();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> countCalls(2)).get();
+        }
+
+        assertEquals(0, MinioCallCounter.stop());
+    }
+
+    @Test
+    public void givenPooledThreadStartedDuringRequest_whenItRunsTasks_thenItDoesNotInheritTheRequestCounter() throws Exception {
+        MinioCallCounter.start();
+        try (ExecutorService pool = Executors.newSingleThreadExecutor()) {
+            pool.submit(() -> countCalls(5)).get();
+        }
+
+        assertEquals(0, MinioCallCounter.stop());
+    }
+
+    @Test
+    public void givenNoCounter_whenPropagated_thenTaskIsReturnedAsIs() {
+        Callable<Void> task = () -> null;
+
+        assertEquals(task, MinioCallCounter.propagate(task));
+    }
+
+    private static Void countCalls(int calls) {
+        for (int i = 0; i < calls; i++) {
+            MinioCallCounter.increment();
+        }
+        return null;
+    }
+}
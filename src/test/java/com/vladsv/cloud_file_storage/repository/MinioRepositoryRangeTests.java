@@ -0,0 +1,148 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vladsv.cloud_file_storage.config.properties.CompressionProperties;
+import com.vladsv.cloud_file_storage.config.properties.MinioHttpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import utils.FramedDeflateCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ranged reads of compressed objects against a stubbed client that serves byte ranges of the
+ * stored form. The bulkhead has a single permit, so a read that doesn't give its permit back
+ * once the response headers are in fails the next one.
+ */
+public class MinioRepositoryRangeTests {
+
+    private static final int FRAME_SIZE = 1024;
+    private static final String COMPRESSED = "user-1-files/compressed.txt";
+    private static final String PLAIN = "user-1-files/plain.bin";
+
+    private final MinioClient minioClient = mock(MinioClient.class);
+    private final List<long[]> fetchedRanges = new ArrayList<>();
+    private final byte[] content = new byte[5 * FRAME_SIZE + 17];
+    private byte[] stored;
+    private MinioRepository minioRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        new Random(11).nextBytes(content);
+        try (InputStream in = FramedDeflateCodec.encode(new ByteArrayInputStream(content), FRAME_SIZE,
+                Deflater.DEFAULT_COMPRESSION)) {
+            stored = in.readAllBytes();
+        }
+
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenAnswer(invocation -> {
+            String object = invocation.<StatObjectArgs>getArgument(0).object();
+            Headers.Builder headers = new Headers.Builder()
+                    .add("ETag", "\"etag\"")
+                    .add("Last-Modified", "Fri, 17 May 2024 10:15:30 GMT");
+            if (COMPRESSED.equals(object)) {
+                headers.add("Content-Length", String.valueOf(stored.length))
+                        .add("x-amz-meta-codec", FramedDeflateCodec.NAME)
+                        .add("x-amz-meta-frame-size", String.valueOf(FRAME_SIZE));
+            } else {
+                headers.add("Content-Length", String.valueOf(content.length));
+            }
+            return new StatObjectResponse(headers.build(), "bucket", null, object);
+        });
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> {
+            GetObjectArgs args = invocation.getArgument(0);
+            byte[] object = COMPRESSED.equals(args.object()) ? stored : content;
+            int offset = (int) (args.offset() == null ? 0 : args.offset());
+            int length = (int) (args.length() == null ? object.length - offset : args.length());
+            fetchedRanges.add(new long[]{offset, length});
+            Headers headers = COMPRESSED.equals(args.object())
+                    ? Headers.of("x-amz-meta-codec", FramedDeflateCodec.NAME)
+                    : Headers.of();
+            return new GetObjectResponse(headers, "bucket", null, args.object(),
+                    new ByteArrayInputStream(object, offset, length));
+        });
+
+        MinioBulkhead bulkhead = new MinioBulkhead(new MinioHttpProperties(1, Duration.ofMinutes(5),
+                Duration.ofSeconds(5), Duration.ofSeconds(60), Duration.ofSeconds(60), 1, 1, 1,
+                Duration.ofMillis(50)), new SimpleMeterRegistry());
+        minioRepository = new MinioRepository(minioClient, null, Caffeine.newBuilder().build(),
+                new CompressionProperties(true, List.of("text/*"), DataSize.ofBytes(FRAME_SIZE), 6), bulkhead);
+        ReflectionTestUtils.setField(minioRepository, "bucketName", "bucket");
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 1",
+            "1023, 2",
+            "1024, 1024",
+            "1000, 3000",
+            "5119, 18",
+            "5136, 1",
+            "0, 5137"
+    })
+    public void givenCompressedObject_whenRangeIsRead_thenItMatchesTheOriginalBytes(long offset, long length) throws IOException {
+        byte[] range;
+        try (InputStream in = minioRepository.getObject(COMPRESSED, offset, length)) {
+            range = in.readAllBytes();
+        }
+
+        assertArrayEquals(Arrays.copyOfRange(content, (int) offset, (int) (offset + length)), range);
+    }
+
+    @Test
+    public void givenCompressedObject_whenRangeInsideOneFrameIsRead_thenOnlyThatFrameIsFetched() throws IOException {
+        try (InputStream in = minioRepository.getObject(COMPRESSED, 2 * FRAME_SIZE + 10, 100)) {
+            in.readAllBytes();
+        }
+
+        long[] frame = fetchedRanges.getLast();
+        assertTrue(frame[1] < stored.length / 4, "fetched %d of %d stored bytes".formatted(frame[1], stored.length));
+    }
+
+    @Test
+    public void givenCompressedObject_whenReadInFull_thenOriginalIsRestored() throws IOException {
+        try (InputStream in = minioRepository.getObject(COMPRESSED)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void givenPlainObject_whenRangeIsRead_thenStoredBytesAreReturnedAsIs() throws IOException {
+        try (InputStream in = minioRepository.getObject(PLAIN, 100, 2000)) {
+            assertArrayEquals(Arrays.copyOfRange(content, 100, 2100), in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void givenDownloadStillBeingRead_whenAnotherObjectIsRead_thenItIsNotRejected() throws IOException {
+        try (InputStream slow = minioRepository.getObject(PLAIN);
+             InputStream other = minioRepository.getObject(COMPRESSED, 0, 10)) {
+            assertArrayEquals(Arrays.copyOfRange(content, 0, 10), other.readAllBytes());
+            assertArrayEquals(content, slow.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.vladsv.cloud_file_storage.repository;
+
+import com.vladsv.cloud_file_storage.config.properties.MinioProperties;
+import com.vladsv.cloud_file_storage.config.properties.PresignedProperties;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PresignedUrlRepositoryTests {
+
+    private final PresignedUrlRepository presignedUrlRepository = new PresignedUrlRepository(
+            new MinioProperties("http://minio:9000", "user", "password", "user-files"),
+            new PresignedProperties(true, "https://files.example.com/", "us-east-1", Duration.ofMinutes(15)));
+
+    @Test
+    public void givenPublicEndpoint_whenUploadUrlRequested_thenBucketUrlOnPublicEndpointIsReturned() {
+        assertEquals("https://files.example.com/user-files", presignedUrlRepository.getUploadUrl());
+    }
+
+    @Test
+    public void givenDeclaredSize_whenUploadFormRequested_thenPolicyPinsKeyAndExactSize() {
+        Map<String, String> fields = presignedUrlRepository.getUploadFormData("user-1-files/docs/report.pdf", 1024);
+
+        assertEquals("user-1-files/docs/report.pdf", fields.get("key"));
+        assertTrue(fields.containsKey("x-amz-signature"));
+
+        String policy = new String(Base64.getDecoder().decode(fields.get("policy")), StandardCharsets.UTF_8);
+        assertTrue(policy.contains("[\"eq\",\"$key\",\"user-1-files/docs/report.pdf\"]"), policy);
+        assertTrue(policy.contains("[\"content-length-range\",1024,1024]"), policy);
+    }
+
+    @Test
+    public void givenEmptyFile_whenUploadFormRequested_thenOnlyEmptyBodyIsAllowed() {
+        Map<String, String> fields = presignedUrlRepository.getUploadFormData("user-1-files/empty.txt", 0);
+
+        String policy = new String(Base64.getDecoder().decode(fields.get("policy")), StandardCharsets.UTF_8);
+        assertTrue(policy.contains("[\"content-length-range\",0,0]"), policy);
+    }
+}
@@ -0,0 +1,119 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.MoveProperties;
+import com.vladsv.cloud_file_storage.exception.ResourceMoveException;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import io.minio.Result;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MoveServiceTests {
+
+    private static final String SOURCE = "user-1-files/docs/";
+    private static final String TARGET = "user-1-files/archive/docs/";
+
+    private final Map<String, String> bucket = new ConcurrentHashMap<>();
+    private final Set<String> failingCopies = ConcurrentHashMap.newKeySet();
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private Map<String, String> before;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 7; i++) {
+            bucket.put(SOURCE + "file-" + i + ".txt", "content-" + i);
+        }
+        bucket.put("user-1-files/other.txt", "unrelated");
+        before = Map.copyOf(bucket);
+
+        when(minioRepository.listObjects(anyString(), anyBoolean())).thenAnswer(invocation -> {
+            String prefix = invocation.getArgument(0);
+            return new TreeMap<>(bucket).keySet().stream()
+                    .filter(key -> key.startsWith(prefix))
+                    .map(key -> new Result<Item>(new IndexedItem(1L, key,
+                            bucket.get(key).getBytes(StandardCharsets.UTF_8).length, "etag", null, null, null)))
+                    .toList();
+        });
+        doAnswer(invocation -> {
+            String source = invocation.getArgument(0);
+            if (failingCopies.contains(source)) {
+                throw new RuntimeException("Copy of " + source + " failed");
+            }
+            bucket.put(invocation.getArgument(1), bucket.get(source));
+            return null;
+        }).when(minioRepository).copyObject(anyString(), anyString());
+        doAnswer(invocation -> {
+            invocation.<List<String>>getArgument(0).forEach(bucket::remove);
+            return null;
+        }).when(minioRepository).removeObjects(anyList());
+    }
+
+    @Test
+    public void givenAllCopiesSucceed_whenMoved_thenEveryObjectIsUnderTarget() {
+        moveService(3).moveDirectory(SOURCE, TARGET);
+
+        before.forEach((key, content) -> {
+            String expected = key.startsWith(SOURCE) ? TARGET + key.substring(SOURCE.length()) : key;
+            assertEquals(content, bucket.get(expected));
+        });
+        assertEquals(before.size(), bucket.size());
+    }
+
+    @Test
+    public void givenCopyFailingMidFirstBatch_whenMoved_thenSourceIsKeptAndCopiesAreRemoved() {
+        failingCopies.add(SOURCE + "file-1.txt");
+
+        assertThrows(ResourceMoveException.class, () -> moveService(3).moveDirectory(SOURCE, TARGET));
+
+        assertEquals(before, bucket);
+    }
+
+    @Test
+    public void givenCopyFailingInLaterBatch_whenMoved_thenMovedBatchesAreRestoredAndCopiesAreRemoved() {
+        failingCopies.add(SOURCE + "file-5.txt");
+
+        assertThrows(ResourceMoveException.class, () -> moveService(2).moveDirectory(SOURCE, TARGET));
+
+        assertEquals(before, bucket);
+    }
+
+    @Test
+    public void givenCopyFailingOnce_whenMoved_thenItIsRetriedAndMoveCompletes() {
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            String source = invocation.getArgument(0);
+            if (source.endsWith("file-2.txt") && attempts.getAndIncrement() == 0) {
+                throw new RuntimeException("Copy of " + source + " failed");
+            }
+            bucket.put(invocation.getArgument(1), bucket.get(source));
+            return null;
+        }).when(minioRepository).copyObject(anyString(), anyString());
+
+        moveService(3).moveDirectory(SOURCE, TARGET);
+
+        assertEquals(2, attempts.get());
+        assertEquals("content-2", bucket.get(TARGET + "file-2.txt"));
+        assertEquals(before.size(), bucket.size());
+    }
+
+    private MoveService moveService(int batchSize) {
+        return new MoveService(minioRepository, new MoveProperties(4, batchSize, 3));
+    }
+}
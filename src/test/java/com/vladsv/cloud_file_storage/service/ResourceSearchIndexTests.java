@@ -0,0 +1,147 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.SearchProperties;
+import com.vladsv.cloud_file_storage.dto.ResourceResponseDto;
+import com.vladsv.cloud_file_storage.entity.ResourceMetadata;
+import com.vladsv.cloud_file_storage.repository.ResourceMetadataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import utils.PathUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResourceSearchIndexTests {
+
+    private static final Long USER_ID = 1L;
+
+    private final ResourceMetadataRepository resourceMetadataRepository = mock(ResourceMetadataRepository.class);
+    private ResourceSearchIndex resourceSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(resourceMetadataRepository.findAllByUserIdAndPathNot(anyLong(), eq(""))).thenReturn(Stream.of(
+                        "docs/",
+                        "docs/report",
+                        "docs/report.pdf",
+                        "docs/myreport.txt",
+                        "docs/annual-report.pdf",
+                        "docs/reports/",
+                        "photos/",
+                        "photos/a.jpg",
+                        "photos/ab.png",
+                        "notes/abcxbcd.txt")
+                .map(ResourceSearchIndexTests::resource)
+                .toList());
+        resourceSearchIndex = new ResourceSearchIndex(resourceMetadataRepository,
+                new SearchProperties(Duration.ofMinutes(30), Duration.ofMinutes(10), 50, 500));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a", "ab", "A"})
+    public void givenQueryShorterThanTrigram_whenSearched_thenAllNamesContainingItAreScanned(String query) {
+        List<String> names = names(query);
+
+        assertTrue(names.containsAll(List.of("ab.png", "abcxbcd.txt")), names.toString());
+        names.forEach(name -> assertTrue(name.toLowerCase().contains(query.toLowerCase()), name));
+    }
+
+    @Test
+    public void givenEmptyQuery_whenSearched_thenEveryResourceIsReturned() {
+        assertEquals(10, names("").size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"zzz", "xyz.pdf", "q", "report.docx"})
+    public void givenQueryMatchingNothing_whenSearched_thenNoResourcesAreReturned(String query) {
+        assertEquals(List.of(), names(query));
+    }
+
+    @Test
+    public void givenQueryWhoseTrigramsMatchButNotContiguously_whenSearched_thenNameIsNotReturned() {
+        assertEquals(List.of(), names("abcd"));
+    }
+
+    @Test
+    public void givenQuery_whenSearched_thenExactNameRanksBeforePrefixWordStartAndSubstring() {
+        assertEquals(List.of("report", "reports", "report.pdf", "annual-report.pdf", "myreport.txt"), names("report"));
+    }
+
+    @Test
+    public void givenOffsetPastResults_whenSearched_thenNoResourcesAreReturned() {
+        assertEquals(List.of(), resourceSearchIndex.search(USER_ID, "report", 10, 10));
+    }
+
+    @Test
+    public void givenLoadedIndex_whenResourceSaved_thenItIsSearchable() {
+        assertEquals(List.of(), names("budget"));
+
+        resourceSearchIndex.onSaved(USER_ID, resource("docs/budget.xlsx"));
+
+        assertEquals(List.of("budget.xlsx"), names("budget"));
+    }
+
+    @Test
+    public void givenLoadedIndex_whenResourcesRemoved_thenTheyAreNoLongerSearchable() {
+        assertEquals(List.of("ab.png"), names("ab.p"));
+
+        resourceSearchIndex.onRemoved(USER_ID, List.of("photos/ab.png"));
+        resourceSearchIndex.onTreeRemoved(USER_ID, "docs/");
+
+        assertEquals(List.of(), names("ab.p"));
+        assertEquals(List.of(), names("report"));
+    }
+
+    @Test
+    public void givenResourceSavedWhileIndexLoads_whenSearched_thenItIsSearchable() {
+        List<ResourceMetadata> snapshot = resourceMetadataRepository.findAllByUserIdAndPathNot(USER_ID, "");
+        when(resourceMetadataRepository.findAllByUserIdAndPathNot(anyLong(), eq(""))).thenAnswer(invocation -> {
+            resourceSearchIndex.onSaved(USER_ID, resource("docs/budget.xlsx"));
+            return snapshot;
+        });
+
+        assertEquals(List.of("budget.xlsx"), names("budget"));
+    }
+
+    @Test
+    public void givenResourcesRemovedWhileIndexLoads_whenSearched_thenStaleRowsAreNotIndexed() {
+        List<ResourceMetadata> snapshot = resourceMetadataRepository.findAllByUserIdAndPathNot(USER_ID, "");
+        when(resourceMetadataRepository.findAllByUserIdAndPathNot(anyLong(), eq(""))).thenAnswer(invocation -> {
+            resourceSearchIndex.onRemoved(USER_ID, List.of("photos/ab.png"));
+            resourceSearchIndex.onTreeRemoved(USER_ID, "docs/");
+            return snapshot;
+        });
+
+        assertEquals(List.of(), names("ab.p"));
+        assertEquals(List.of(), names("report"));
+        assertEquals(List.of("a.jpg"), names("a.j"));
+    }
+
+    private List<String> names(String query) {
+        return resourceSearchIndex.search(USER_ID, query, 0, Integer.MAX_VALUE).stream()
+                .map(ResourceResponseDto::name)
+                .map(name -> name.endsWith("/") ? name.substring(0, name.length() - 1) : name)
+                .toList();
+    }
+
+    private static ResourceMetadata resource(String path) {
+        boolean directory = PathUtils.isDir(path);
+        return ResourceMetadata.builder()
+                .userId(USER_ID)
+                .path(path)
+                .name(PathUtils.getResourceNameFromPath(path))
+                .type(directory ? ResourceMetadata.Type.DIRECTORY : ResourceMetadata.Type.FILE)
+                .size(directory ? null : 1L)
+                .build();
+    }
+}
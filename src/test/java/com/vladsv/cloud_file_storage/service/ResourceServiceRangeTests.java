@@ -0,0 +1,259 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.PresignedProperties;
+import com.vladsv.cloud_file_storage.config.properties.SearchProperties;
+import com.vladsv.cloud_file_storage.config.properties.UploadProperties;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import com.vladsv.cloud_file_storage.repository.PresignedUrlRepository;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResourceServiceRangeTests {
+
+    private static final Long USER_ID = 1L;
+    private static final String PATH = "docs/report.txt";
+    private static final String KEY = "user-1-files/" + PATH;
+    private static final String ETAG = "\"0123456789abcdef\"";
+    private static final ZonedDateTime LAST_MODIFIED = ZonedDateTime.of(2024, 5, 17, 10, 15, 30, 0, ZoneOffset.UTC);
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final ArchiveService archiveService = mock(ArchiveService.class);
+    private final ResourceMetadataService resourceMetadataService = mock(ResourceMetadataService.class);
+
+    private final ResourceService resourceService = new ResourceService(
+            minioRepository,
+            archiveService,
+            mock(MoveService.class),
+            resourceMetadataService,
+            mock(StorageUsageService.class),
+            mock(BlobService.class),
+            mock(ThumbnailService.class),
+            mock(StorageMetrics.class),
+            mock(PresignedUrlRepository.class),
+            new UploadProperties(DataSize.ofMegabytes(16), Duration.ofHours(24), 16),
+            new PresignedProperties(false, null, "us-east-1", Duration.ofMinutes(15)),
+            new SearchProperties(Duration.ofMinutes(30), Duration.ofMinutes(10), 50, 500));
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/resource/download");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.etag()).thenReturn(ETAG.substring(1, ETAG.length() - 1));
+        when(stat.lastModified()).thenReturn(LAST_MODIFIED);
+        when(stat.size()).thenReturn((long) CONTENT.length);
+        when(stat.contentType()).thenReturn("text/plain");
+
+        when(resourceMetadataService.exists(USER_ID, KEY)).thenReturn(true);
+        when(minioRepository.statObject(KEY)).thenReturn(stat);
+        when(minioRepository.getObject(KEY)).thenAnswer(invocation -> new ByteArrayInputStream(CONTENT));
+        when(minioRepository.getObject(eq(KEY), anyLong(), anyLong())).thenAnswer(invocation -> new ByteArrayInputStream(
+                CONTENT, (int) invocation.<Long>getArgument(1).longValue(), (int) invocation.<Long>getArgument(2).longValue()));
+    }
+
+    @Test
+    public void givenNoRange_whenDownloaded_thenWholeBodyIsSentWithAcceptRanges() {
+        download();
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(CONTENT.length, response.getContentLengthLong());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void givenRange_whenDownloaded_thenOnlyThatSliceIsReadAndSentWith206() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        download();
+
+        assertPartial(2, 5);
+        verify(minioRepository).getObject(KEY, 2L, 4L);
+    }
+
+    @Test
+    public void givenSuffixRange_whenDownloaded_thenLastBytesAreSent() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        download();
+
+        assertPartial(CONTENT.length - 3, CONTENT.length - 1);
+    }
+
+    @Test
+    public void givenOpenEndedRange_whenDownloaded_thenBodyToTheEndIsSent() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=15-");
+
+        download();
+
+        assertPartial(15, CONTENT.length - 1);
+    }
+
+    @Test
+    public void givenRangeBeyondEnd_whenDownloaded_thenRangeNotSatisfiableIsAnswered() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-200");
+
+        download();
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), response.getStatus());
+        assertEquals("bytes */" + CONTENT.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+        verify(minioRepository, never()).getObject(anyString());
+        verify(minioRepository, never()).getObject(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void givenSeveralRanges_whenDownloaded_thenWholeBodyIsSent() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,4-5");
+
+        download();
+
+        assertFull();
+    }
+
+    @Test
+    public void givenIfRangeWithCurrentEtag_whenDownloaded_thenRangeIsServed() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+        download();
+
+        assertPartial(2, 5);
+    }
+
+    @Test
+    public void givenIfRangeWithOutdatedEtag_whenDownloaded_thenWholeBodyIsSent() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"outdated\"");
+
+        download();
+
+        assertFull();
+    }
+
+    @Test
+    public void givenIfRangeWithWeakEtag_whenDownloaded_thenWholeBodyIsSent() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "W/" + ETAG);
+
+        download();
+
+        assertFull();
+    }
+
+    @Test
+    public void givenIfRangeWithLastModifiedDate_whenDownloaded_thenRangeIsServed() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED));
+
+        download();
+
+        assertPartial(2, 5);
+    }
+
+    @Test
+    public void givenIfRangeWithOlderDate_whenDownloaded_thenWholeBodyIsSent() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED.minusDays(1)));
+
+        download();
+
+        assertFull();
+    }
+
+    @Test
+    public void givenIfNoneMatchWithCurrentEtag_whenDownloaded_thenNotModifiedIsAnsweredWithoutBody() {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        download();
+
+        assertNotModified();
+    }
+
+    @Test
+    public void givenIfModifiedSinceLastModified_whenDownloaded_thenNotModifiedIsAnsweredWithoutBody() {
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED));
+
+        download();
+
+        assertNotModified();
+    }
+
+    @Test
+    public void givenIfRangeDateForStoredArchive_whenDownloaded_thenRangeIsIgnoredAsArchiveHasNoDate() throws IOException {
+        Item item = new IndexedItem(USER_ID, "user-1-files/docs/readme.txt", 10, "etag", null, 0L, LAST_MODIFIED);
+        when(resourceMetadataService.exists(USER_ID, "user-1-files/docs/")).thenReturn(true);
+        when(resourceMetadataService.findIndexedItems(USER_ID, "user-1-files/docs/")).thenReturn(List.of(item));
+        when(archiveService.isStoredMode()).thenReturn(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED));
+
+        resourceService.downloadResource("docs/", USER_ID, request, response);
+
+        StoredZipArchive archive = StoredZipArchive.of("user-1-files/docs/", List.of(item));
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(archive.length(), response.getContentLengthLong());
+        verify(archiveService).writeStoredZip(any(), eq(0L), eq(archive.length()), any());
+    }
+
+    private void download() {
+        resourceService.downloadResource(PATH, USER_ID, request, response);
+    }
+
+    private void assertPartial(int start, int end) {
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), response.getStatus());
+        assertEquals("bytes %d-%d/%d".formatted(start, end, CONTENT.length), response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(end - start + 1, response.getContentLengthLong());
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, start, end + 1), response.getContentAsByteArray());
+    }
+
+    private void assertFull() {
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    private void assertNotModified() {
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        verify(minioRepository, never()).getObject(anyString());
+        verify(minioRepository, never()).getObject(anyString(), anyLong(), anyLong());
+    }
+
+    private static String httpDate(ZonedDateTime date) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setZonedDateTime(HttpHeaders.DATE, date);
+        return headers.getFirst(HttpHeaders.DATE);
+    }
+}
@@ -0,0 +1,257 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.ArchiveProperties;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StoredZipArchiveTests {
+
+    private static final String BASE_PATH = "user-1-files/";
+
+    private final Map<String, byte[]> objects = new LinkedHashMap<>();
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final ResourceMetadataService resourceMetadataService = mock(ResourceMetadataService.class);
+    private ArchiveService archiveService;
+    private StoredZipArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        objects.put(BASE_PATH + "docs/", new byte[0]);
+        objects.put(BASE_PATH + "docs/readme.txt", "hello, stored zip".getBytes(StandardCharsets.UTF_8));
+        objects.put(BASE_PATH + "docs/empty.bin", new byte[0]);
+        objects.put(BASE_PATH + "docs/sub/", new byte[0]);
+        objects.put(BASE_PATH + "docs/sub/random.bin", randomBytes(random, 100_000));
+        objects.put(BASE_PATH + "docs/sub/ünïcödé.txt", randomBytes(random, 4_321));
+
+        when(minioRepository.getObject(anyString())).thenAnswer(invocation ->
+                new ByteArrayInputStream(objects.get(invocation.<String>getArgument(0))));
+        when(minioRepository.getObject(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            byte[] content = objects.get(invocation.<String>getArgument(0));
+            int offset = (int) invocation.<Long>getArgument(1).longValue();
+            int length = (int) invocation.<Long>getArgument(2).longValue();
+            return new ByteArrayInputStream(content, offset, length);
+        });
+
+        archiveService = new ArchiveService(minioRepository, resourceMetadataService, new ArchiveProperties(8,
+                DataSize.ofMegabytes(64), DataSize.ofMegabytes(8), ArchiveProperties.Mode.STORED, List.of()));
+        archive = archiveOf(false);
+    }
+
+    @Test
+    public void givenStoredArchive_whenWrittenInFull_thenLengthIsExactAndZipInputStreamReadsEveryEntry() throws IOException {
+        byte[] zip = write(0, archive.length());
+
+        assertEquals(archive.length(), zip.length);
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+
+        assertEquals(objects.keySet().stream().map(key -> key.substring(BASE_PATH.length())).toList(),
+                List.copyOf(entries.keySet()));
+        objects.forEach((key, content) -> assertArrayEquals(content, entries.get(key.substring(BASE_PATH.length()))));
+    }
+
+    @Test
+    public void givenStoredArchive_whenWrittenInFull_thenCentralDirectoryListsEveryEntry(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("archive.zip");
+        Files.write(file, write(0, archive.length()));
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(objects.size(), zip.size());
+            for (Map.Entry<String, byte[]> object : objects.entrySet()) {
+                ZipEntry entry = zip.getEntry(object.getKey().substring(BASE_PATH.length()));
+                try (InputStream in = zip.getInputStream(entry)) {
+                    assertArrayEquals(object.getValue(), in.readAllBytes());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void givenObjectsTooLargeToBuffer_whenWritten_thenArchiveIsTheSame() throws IOException {
+        byte[] buffered = write(0, archive.length());
+
+        archiveService = new ArchiveService(minioRepository, resourceMetadataService, new ArchiveProperties(8,
+                DataSize.ofMegabytes(64), DataSize.ofBytes(16), ArchiveProperties.Mode.STORED, List.of()));
+
+        assertArrayEquals(buffered, write(0, archive.length()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 1000, 65_536})
+    public void givenStoredArchive_whenWrittenInRanges_thenSlicesConcatenateToFullArchive(int sliceLength) throws IOException {
+        byte[] full = write(0, archive.length());
+
+        ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        for (long offset = 0; offset < archive.length(); offset += sliceLength) {
+            long length = Math.min(sliceLength, archive.length() - offset);
+            byte[] slice = write(offset, length);
+            assertEquals(length, slice.length);
+            concatenated.writeBytes(slice);
+        }
+
+        assertArrayEquals(full, concatenated.toByteArray());
+    }
+
+    @Test
+    public void givenRangeInsideFileData_whenWritten_thenOnlyThatSliceOfTheObjectIsRead() throws IOException {
+        StoredZipArchive.Entry entry = archive.entries().stream()
+                .filter(candidate -> candidate.objectName().endsWith("random.bin"))
+                .findFirst()
+                .orElseThrow();
+        byte[] content = objects.get(entry.objectName());
+
+        byte[] slice = write(entry.dataOffset() + 10, 500);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 510), slice);
+    }
+
+    @Test
+    public void givenIndexedCrcs_whenWrittenInFull_thenArchiveIsTheSame() throws IOException {
+        byte[] computed = write(0, archive.length());
+
+        archive = archiveOf(true);
+
+        assertArrayEquals(computed, write(0, archive.length()));
+    }
+
+    @Test
+    public void givenIndexedCrcs_whenOnlyCentralDirectoryIsWritten_thenNoObjectIsRead() throws IOException {
+        archive = archiveOf(true);
+        byte[] full = write(0, archive.length());
+        clearInvocations(minioRepository);
+
+        byte[] tail = write(archive.centralDirectoryOffset(), archive.length() - archive.centralDirectoryOffset());
+
+        assertArrayEquals(Arrays.copyOfRange(full, (int) archive.centralDirectoryOffset(), full.length), tail);
+        verify(minioRepository, never()).getObject(anyString());
+        verify(minioRepository, never()).getObject(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void givenIndexedCrcsAndObjectsTooLargeToBuffer_whenRangeStartsAtHeader_thenOnlyRequestedBytesAreRead() throws IOException {
+        archiveService = new ArchiveService(minioRepository, resourceMetadataService, new ArchiveProperties(8,
+                DataSize.ofMegabytes(64), DataSize.ofBytes(16), ArchiveProperties.Mode.STORED, List.of()));
+        archive = archiveOf(true);
+        StoredZipArchive.Entry entry = archive.entries().stream()
+                .filter(candidate -> candidate.objectName().endsWith("random.bin"))
+                .findFirst()
+                .orElseThrow();
+
+        write(entry.localHeaderOffset(), entry.dataOffset() - entry.localHeaderOffset() + 100);
+
+        verify(minioRepository, never()).getObject(anyString());
+        verify(minioRepository).getObject(entry.objectName(), 0L, 100L);
+    }
+
+    @Test
+    public void givenUnknownCrcs_whenWritten_thenComputedCrcsAreRecordedInTheIndex() throws IOException {
+        write(0, archive.length());
+
+        for (Map.Entry<String, byte[]> object : objects.entrySet()) {
+            if (object.getValue().length > 0) {
+                verify(resourceMetadataService).saveCrc32(1L, object.getKey(), "etag", crc(object.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void givenWriteAbortedWithPrefetchedObjects_whenNextArchiveIsWritten_thenSharedBudgetWasGivenBack() throws IOException {
+        long total = objects.values().stream().mapToLong(content -> content.length).sum();
+        archiveService = new ArchiveService(minioRepository, resourceMetadataService, new ArchiveProperties(8,
+                DataSize.ofBytes(total), DataSize.ofMegabytes(8), ArchiveProperties.Mode.STORED, List.of()));
+
+        OutputStream aborting = new OutputStream() {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++written > 200) {
+                    throw new IOException("Connection reset");
+                }
+            }
+        };
+        assertThrows(IOException.class, () -> archiveService.writeStoredZip(archive, 0, archive.length(), aborting));
+
+        Set<Thread> readers = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            readers.add(Thread.currentThread());
+            return new ByteArrayInputStream(objects.get(invocation.<String>getArgument(0)));
+        }).when(minioRepository).getObject(anyString());
+        write(0, archive.length());
+
+        assertFalse(readers.isEmpty());
+        assertFalse(readers.contains(Thread.currentThread()));
+    }
+
+    private StoredZipArchive archiveOf(boolean withCrc) {
+        return StoredZipArchive.of(BASE_PATH, objects.entrySet().stream()
+                .<Item>map(object -> new IndexedItem(1L, object.getKey(), object.getValue().length, "etag",
+                        null, withCrc ? crc(object.getValue()) : null, ZonedDateTime.parse("2024-05-17T10:15:30Z")))
+                .toList());
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private byte[] write(long offset, long length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiveService.writeStoredZip(archive, offset, length, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
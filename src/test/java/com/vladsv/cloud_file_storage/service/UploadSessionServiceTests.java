@@ -0,0 +1,52 @@
+package com.vladsv.cloud_file_storage.service;
+
+import com.vladsv.cloud_file_storage.config.properties.PresignedProperties;
+import com.vladsv.cloud_file_storage.config.properties.UploadProperties;
+import com.vladsv.cloud_file_storage.dto.UploadSessionRequestDto;
+import com.vladsv.cloud_file_storage.exception.InvalidResourcePathException;
+import com.vladsv.cloud_file_storage.repository.MinioRepository;
+import com.vladsv.cloud_file_storage.repository.PresignedUrlRepository;
+import com.vladsv.cloud_file_storage.repository.UploadSessionRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class UploadSessionServiceTests {
+
+    private static final Long USER_ID = 1L;
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+    private final StorageUsageService storageUsageService = mock(StorageUsageService.class);
+
+    private final UploadSessionService uploadSessionService = new UploadSessionService(
+            minioRepository,
+            uploadSessionRepository,
+            mock(PresignedUrlRepository.class),
+            mock(ResourceService.class),
+            mock(ResourceMetadataService.class),
+            storageUsageService,
+            mock(BlobService.class),
+            mock(ThumbnailService.class),
+            new UploadProperties(DataSize.ofMegabytes(16), Duration.ofHours(24), 16),
+            new PresignedProperties(false, null, "us-east-1", Duration.ofMinutes(15)));
+
+    @ParameterizedTest
+    @ValueSource(strings = {"big/", "/", "nested/big/", "big//"})
+    public void givenDirectoryName_whenSessionCreated_thenInvalidResourcePathExceptionIsThrown(String name) {
+        UploadSessionRequestDto request = new UploadSessionRequestDto("docs/", name, 1024L, null);
+
+        assertThrows(InvalidResourcePathException.class, () -> uploadSessionService.createSession(request, USER_ID));
+        verify(minioRepository, never()).createMultipartUpload(anyString(), anyString());
+        verify(uploadSessionRepository, never()).save(any());
+    }
+}
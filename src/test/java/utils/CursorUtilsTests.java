@@ -0,0 +1,45 @@
+package utils;
+
+import com.vladsv.cloud_file_storage.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CursorUtilsTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"docs/report.pdf", "docs/2024/", "фото/отпуск.jpg", "a b+c/d?e=f"})
+    public void givenPath_whenEncodedAndDecoded_thenSamePathIsReturned(String path) {
+        assertEquals(path, CursorUtils.decode(CursorUtils.encode(path)));
+    }
+
+    @Test
+    public void givenOffset_whenEncodedAndDecoded_thenSameOffsetIsReturned() {
+        assertEquals(150, CursorUtils.decodeOffset(CursorUtils.encode("150")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not a cursor", "%%%", "ZG9j*", "a+b/c", "Z"})
+    public void givenCursorThatIsNotBase64Url_whenDecoded_thenInvalidCursorExceptionIsThrown(String cursor) {
+        assertThrows(InvalidCursorException.class, () -> CursorUtils.decode(cursor));
+        assertThrows(InvalidCursorException.class, () -> CursorUtils.decodeOffset(cursor));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-1", "-2147483648", "2147483648", "12abc", "1.5", "", " 10"})
+    public void givenTamperedOffsetCursor_whenDecoded_thenInvalidCursorExceptionIsThrown(String offset) {
+        String cursor = CursorUtils.encode(offset);
+
+        assertThrows(InvalidCursorException.class, () -> CursorUtils.decodeOffset(cursor));
+    }
+
+    @Test
+    public void givenPathCursor_whenDecodedAsOffset_thenInvalidCursorExceptionIsThrown() {
+        String cursor = CursorUtils.encode("docs/report.pdf");
+
+        assertThrows(InvalidCursorException.class, () -> CursorUtils.decodeOffset(cursor));
+    }
+}
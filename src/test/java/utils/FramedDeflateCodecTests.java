@@ -0,0 +1,100 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FramedDeflateCodecTests {
+
+    private static final int FRAME_SIZE = 1024;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, FRAME_SIZE - 1, FRAME_SIZE, FRAME_SIZE + 1, 3 * FRAME_SIZE - 1, 3 * FRAME_SIZE,
+            3 * FRAME_SIZE + 1})
+    public void givenInputAroundFrameBoundary_whenEncodedAndDecoded_thenOriginalIsRestored(int size) throws IOException {
+        byte[] original = content(size);
+
+        byte[] encoded = encode(original);
+
+        assertArrayEquals(original, FramedDeflateCodec.decode(new ByteArrayInputStream(encoded)).readAllBytes());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, FRAME_SIZE - 1, FRAME_SIZE, FRAME_SIZE + 1, 3 * FRAME_SIZE + 1})
+    public void givenEncodedInput_whenFooterIsRead_thenItHoldsLogicalSizeAndOneIndexEntryPerFrame(int size) throws IOException {
+        byte[] encoded = encode(content(size));
+        int frames = (size + FRAME_SIZE - 1) / FRAME_SIZE;
+
+        byte[] footer = Arrays.copyOfRange(encoded, encoded.length - FramedDeflateCodec.FOOTER_LENGTH, encoded.length);
+        int indexOffset = encoded.length - FramedDeflateCodec.FOOTER_LENGTH - frames * FramedDeflateCodec.INDEX_ENTRY_LENGTH;
+        long[] offsets = FramedDeflateCodec.readOffsets(Arrays.copyOfRange(encoded, indexOffset,
+                encoded.length - FramedDeflateCodec.FOOTER_LENGTH));
+
+        assertEquals(size, FramedDeflateCodec.readLogicalSize(footer));
+        assertEquals(frames, offsets.length);
+        if (frames > 0) {
+            assertEquals(0, offsets[0]);
+        }
+    }
+
+    @Test
+    public void givenEmptyInput_whenEncoded_thenOnlyEndMarkerAndFooterAreWritten() throws IOException {
+        byte[] encoded = encode(new byte[0]);
+
+        assertEquals(FramedDeflateCodec.END_MARKER_LENGTH + FramedDeflateCodec.FOOTER_LENGTH, encoded.length);
+        assertEquals(0, FramedDeflateCodec.decode(new ByteArrayInputStream(encoded)).readAllBytes().length);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 1",
+            "1023, 2",
+            "1024, 1024",
+            "100, 2900",
+            "3072, 1",
+            "0, 3073"
+    })
+    public void givenSkipAndLimit_whenDecoded_thenOnlyThatRangeIsReturned(long skip, long limit) throws IOException {
+        byte[] original = content(3 * FRAME_SIZE + 1);
+
+        byte[] decoded = FramedDeflateCodec.decode(new ByteArrayInputStream(encode(original)), skip, limit).readAllBytes();
+
+        assertArrayEquals(Arrays.copyOfRange(original, (int) skip, (int) (skip + limit)), decoded);
+    }
+
+    @Test
+    public void givenNonFooterBytes_whenLogicalSizeIsRead_thenItFails() {
+        assertThrows(IOException.class, () -> FramedDeflateCodec.readLogicalSize(new byte[FramedDeflateCodec.FOOTER_LENGTH]));
+    }
+
+    private static byte[] encode(byte[] original) throws IOException {
+        try (InputStream in = FramedDeflateCodec.encode(new ByteArrayInputStream(original), FRAME_SIZE,
+                Deflater.DEFAULT_COMPRESSION)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Half random, half repeated, so frames neither blow up nor collapse to nothing.
+     */
+    private static byte[] content(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        for (int i = 0; i < size; i += 2) {
+            bytes[i] = (byte) 'a';
+        }
+        return bytes;
+    }
+}
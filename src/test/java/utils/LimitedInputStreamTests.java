@@ -0,0 +1,42 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LimitedInputStreamTests {
+
+    @Test
+    public void givenBodyWithinLimit_whenReadFully_thenAllBytesAreCounted() throws IOException {
+        byte[] body = new byte[1024];
+        LimitedInputStream stream = new LimitedInputStream(new ByteArrayInputStream(body), body.length);
+
+        assertArrayEquals(body, stream.readAllBytes());
+        assertEquals(body.length, stream.getCount());
+        assertFalse(stream.isExceeded());
+    }
+
+    @Test
+    public void givenBodyOverLimit_whenRead_thenReadFailsAndStreamIsMarkedExceeded() {
+        LimitedInputStream stream = new LimitedInputStream(new ByteArrayInputStream(new byte[1025]), 1024);
+
+        assertThrows(IOException.class, stream::readAllBytes);
+        assertTrue(stream.isExceeded());
+        assertTrue(stream.getCount() > 1024);
+    }
+
+    @Test
+    public void givenZeroLimit_whenSingleByteIsRead_thenReadFails() {
+        LimitedInputStream stream = new LimitedInputStream(new ByteArrayInputStream(new byte[1]), 0);
+
+        assertThrows(IOException.class, stream::read);
+        assertTrue(stream.isExceeded());
+    }
+}
@@ -0,0 +1,109 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourcePathTests {
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "docs/report.pdf | docs/report.pdf",
+            "/docs/report.pdf | docs/report.pdf",
+            "///docs//2024///report.pdf | docs/2024/report.pdf",
+            "docs/2024/ | docs/2024/",
+            "docs//2024// | docs/2024/",
+            "/ | ''",
+            "'' | ''",
+            "a | a"
+    }, delimiter = '|')
+    public void givenRawPath_whenNormalized_thenMatchesRegexBasedNormalization(String raw, String expected) {
+        assertEquals(expected, ResourcePath.normalize(raw));
+        assertEquals(raw.replaceAll("/{2,}", "/").replaceFirst("^/", ""), ResourcePath.normalize(raw));
+    }
+
+    @Test
+    public void givenCleanPath_whenNormalized_thenSameInstanceIsReturned() {
+        String path = "docs/2024/report.pdf";
+        assertSame(path, ResourcePath.normalize(path));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "report.pdf | report.pdf | /",
+            "docs/report.pdf | report.pdf | docs/",
+            "docs/2024/report.pdf | report.pdf | docs/2024/",
+            "docs/ | docs/ | /",
+            "docs/2024/ | 2024/ | docs/",
+            "'' | '' | /"
+    }, delimiter = '|')
+    public void givenRelativePath_whenNameAndParentRequested_thenMatchPathUtils(String path, String name, String parent) {
+        ResourcePath resourcePath = ResourcePath.of(path);
+
+        assertEquals(name, resourcePath.name());
+        assertEquals(parent, resourcePath.parent());
+        assertEquals(legacyName(path), resourcePath.name());
+        assertEquals(legacyParent(path), resourcePath.parent());
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "report.pdf | report.pdf | /",
+            "docs/report.pdf | report.pdf | docs/",
+            "docs/2024/ | 2024/ | docs/"
+    }, delimiter = '|')
+    public void givenAbsolutePath_whenViewedRelativeToUserRoot_thenPrefixIsSkipped(String path, String name, String parent) {
+        ResourcePath resourcePath = ResourcePath.ofAbsolute("user-7-files/" + path, 7L);
+
+        assertEquals(path, resourcePath.value());
+        assertEquals(name, resourcePath.name());
+        assertEquals(parent, resourcePath.parent());
+        assertEquals(ResourcePath.of(path), resourcePath);
+    }
+
+    @Test
+    public void givenUserRoot_whenViewedRelativeToIt_thenPathIsRoot() {
+        ResourcePath root = ResourcePath.ofAbsolute("user-7-files/", 7L);
+
+        assertTrue(root.isRoot());
+        assertFalse(root.isDir());
+        assertEquals("", root.name());
+        assertEquals("/", root.parent());
+    }
+
+    @Test
+    public void givenRelativePath_whenMadeAbsolute_thenUserRootIsPrepended() {
+        assertEquals("user-42-files/docs/report.pdf", ResourcePath.parse("//docs/report.pdf").toAbsolute(42L));
+        assertEquals("user-42-files/", ResourcePath.parse("/").toAbsolute(42L));
+        assertEquals(PathUtils.USER_ROOT_DIR_PATTERN.formatted(42L), ResourcePath.userRoot(42L));
+    }
+
+    @Test
+    public void givenPath_whenMadeDirectory_thenSuffixIsAppliedOnce() {
+        assertEquals("docs/", ResourcePath.parse("docs").asDirectory().value());
+        assertEquals("docs/", ResourcePath.parse("docs/").asDirectory().value());
+        assertEquals("docs/", ResourcePath.parse("//docs//").asDirectory().value());
+        assertTrue(ResourcePath.parse("docs").asDirectory().isDir());
+        assertTrue(ResourcePath.parse("").asDirectory().isRoot());
+        assertEquals("", ResourcePath.parse("/").asDirectory().value());
+    }
+
+    private static String legacyName(String resource) {
+        boolean isDir = resource.endsWith("/");
+        String trimmed = isDir ? resource.substring(0, resource.length() - 1) : resource;
+        int lastIndexOfSlash = trimmed.lastIndexOf("/");
+        String name = lastIndexOfSlash >= 0 ? trimmed.substring(lastIndexOfSlash + 1) : trimmed;
+        return isDir ? name + "/" : name;
+    }
+
+    private static String legacyParent(String resource) {
+        String trimmed = resource.endsWith("/") ? resource.substring(0, resource.length() - 1) : resource;
+        int lastIndexOfSlash = trimmed.lastIndexOf("/");
+        return lastIndexOfSlash > 0 ? trimmed.substring(0, lastIndexOfSlash + 1) : "/";
+    }
+}